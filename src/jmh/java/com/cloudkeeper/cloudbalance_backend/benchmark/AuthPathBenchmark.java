@@ -0,0 +1,112 @@
+package com.cloudkeeper.cloudbalance_backend.benchmark;
+
+import com.cloudkeeper.cloudbalance_backend.service.JwtService;
+import com.cloudkeeper.cloudbalance_backend.service.TokenVersionService;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revocation check on the auth path with 100k active users.
+ * Compares the old per-request Redis EXISTS on the blacklist key with the cached token-version check.
+ * Needs a local Redis (-Dbench.redis.host / -Dbench.redis.port), keys use a reserved user id range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class AuthPathBenchmark {
+
+    private static final int ACTIVE_USERS = 100_000;
+    private static final long USER_ID_OFFSET = 900_000_000L;
+    private static final String LEGACY_BLACKLIST_PREFIX = "blacklist:token:";
+    private static final String VERSION_PREFIX = "user:token:version:";
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer listenerContainer;
+    private StringRedisTemplate redisTemplate;
+    private TokenVersionService tokenVersionService;
+    private JwtService jwtService;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        connectionFactory = BenchmarkSupport.redisConnectionFactory();
+        redisTemplate = BenchmarkSupport.redisTemplate(connectionFactory);
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        tokenVersionService = new TokenVersionService(redisTemplate, listenerContainer);
+        BenchmarkSupport.setField(tokenVersionService, "localMaxSize", 200_000L);
+        BenchmarkSupport.setField(tokenVersionService, "localTtlSeconds", 300L);
+        BenchmarkSupport.invoke(tokenVersionService, "init");
+
+        jwtService = new JwtService();
+        BenchmarkSupport.setField(jwtService, "secretKey", "ZmFrZS1iZW5jaG1hcmstc2VjcmV0LWtleS1mb3ItaHMyNTYtc2lnbmluZw==");
+        BenchmarkSupport.setField(jwtService, "accessTokenExpiration", TimeUnit.HOURS.toMillis(1));
+
+        // seed one version key per user in a single pipeline
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < ACTIVE_USERS; i++) {
+                connection.stringCommands().set(
+                        (VERSION_PREFIX + (USER_ID_OFFSET + i)).getBytes(StandardCharsets.UTF_8),
+                        "3".getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+
+        tokens = new String[ACTIVE_USERS];
+        for (int i = 0; i < ACTIVE_USERS; i++) {
+            long userId = USER_ID_OFFSET + i;
+            UserDetails user = User.withUsername("bench-" + userId + "@cloudbalance.com").password("x").roles("CUSTOMER").build();
+            tokens[i] = jwtService.generateAccessToken(user, userId, 3, "SESSION" + userId);
+            // warm the local version map, as a running node would be after one request per user
+            tokenVersionService.isTokenVersionCurrent(userId, 3);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        List<String> keys = new ArrayList<>(ACTIVE_USERS);
+        for (int i = 0; i < ACTIVE_USERS; i++) {
+            keys.add(VERSION_PREFIX + (USER_ID_OFFSET + i));
+        }
+        redisTemplate.delete(keys);
+        listenerContainer.stop();
+        connectionFactory.destroy();
+    }
+
+    // previous path : one Redis round trip per request to check the raw-token blacklist key
+    @Benchmark
+    public Boolean legacyBlacklistExists() {
+        return redisTemplate.hasKey(LEGACY_BLACKLIST_PREFIX + tokens[ThreadLocalRandom.current().nextInt(ACTIVE_USERS)]);
+    }
+
+    // new path : revocation check served from the local version map
+    @Benchmark
+    public boolean cachedVersionCheck() {
+        int i = ThreadLocalRandom.current().nextInt(ACTIVE_USERS);
+        return tokenVersionService.isTokenVersionCurrent(USER_ID_OFFSET + i, 3);
+    }
+
+    // full filter cost : single claims parse plus version check
+    @Benchmark
+    public boolean parseAndVersionCheck() {
+        Claims claims = jwtService.extractAllClaims(tokens[ThreadLocalRandom.current().nextInt(ACTIVE_USERS)]);
+        return tokenVersionService.isTokenVersionCurrent(claims.get("userId", Long.class), claims.get("tokenVersion", Integer.class));
+    }
+}
@@ -0,0 +1,75 @@
+package com.cloudkeeper.cloudbalance_backend.benchmark;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Properties;
+
+// wiring helpers for benchmarks that run services outside the Spring context
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    static LettuceConnectionFactory redisConnectionFactory() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration();
+        configuration.setHostName(System.getProperty("bench.redis.host", "localhost"));
+        configuration.setPort(Integer.getInteger("bench.redis.port", 6379));
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(configuration);
+        factory.afterPropertiesSet();
+        factory.start();
+        return factory;
+    }
+
+    static StringRedisTemplate redisTemplate(LettuceConnectionFactory factory) {
+        StringRedisTemplate template = new StringRedisTemplate(factory);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    static Connection jdbcConnection() {
+        return jdbcConnection(false);
+    }
+
+    // reWriteBatchedInserts as set on the application's datasource
+    static Connection jdbcConnection(boolean reWriteBatchedInserts) {
+        Properties properties = new Properties();
+        properties.setProperty("user", System.getProperty("bench.db.user", "postgres"));
+        properties.setProperty("password", System.getProperty("bench.db.password", "postgres"));
+        properties.setProperty("reWriteBatchedInserts", String.valueOf(reWriteBatchedInserts));
+        try {
+            return DriverManager.getConnection(
+                    System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/cloudbalance_bench"), properties);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot connect to benchmark database", e);
+        }
+    }
+
+    // stands in for @Value injection
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    // stands in for @PostConstruct
+    static void invoke(Object target, String methodName) {
+        try {
+            Method method = target.getClass().getDeclaredMethod(methodName);
+            method.setAccessible(true);
+            method.invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot invoke " + methodName + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
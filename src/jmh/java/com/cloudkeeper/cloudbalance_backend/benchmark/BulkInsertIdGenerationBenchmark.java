@@ -0,0 +1,166 @@
+package com.cloudkeeper.cloudbalance_backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk user and account creation throughput (rows per second), with the JDBC traffic Hibernate produces.
+ * identity : IDENTITY ids, one INSERT ... RETURNING id round trip per row, as before V4.
+ * pooledBatched : one nextval per 50 ids, rows sent as JDBC batches of 50, with and without the
+ * driver's reWriteBatchedInserts. Every invocation commits one transaction of users then accounts.
+ * Needs a local PostgreSQL (see BenchmarkSupport), tables live in a throwaway bench_ids schema.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BulkInsertIdGenerationBenchmark {
+
+    private static final int ROWS = 1000;
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Param({"false", "true"})
+    private boolean reWriteBatchedInserts;
+
+    private Connection connection;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void createSchema() throws SQLException {
+        connection = BenchmarkSupport.jdbcConnection(reWriteBatchedInserts);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS bench_ids CASCADE");
+            statement.execute("CREATE SCHEMA bench_ids");
+            for (String kind : new String[]{"identity", "pooled"}) {
+                String id = kind.equals("identity") ? "BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY" : "BIGINT PRIMARY KEY";
+                statement.execute("""
+                        CREATE TABLE bench_ids.users_%1$s (
+                            id %2$s,
+                            first_name VARCHAR(25) NOT NULL,
+                            email VARCHAR(50) NOT NULL UNIQUE,
+                            role VARCHAR(255) NOT NULL,
+                            active BOOLEAN NOT NULL,
+                            created_at TIMESTAMP(6) NOT NULL,
+                            token_version INTEGER NOT NULL)
+                        """.formatted(kind, id));
+                statement.execute("""
+                        CREATE TABLE bench_ids.aws_accounts_%1$s (
+                            id %2$s,
+                            account_id VARCHAR(255) NOT NULL UNIQUE,
+                            account_alias VARCHAR(255) NOT NULL,
+                            active BOOLEAN NOT NULL,
+                            created_at TIMESTAMP(6))
+                        """.formatted(kind, id));
+            }
+            statement.execute("CREATE SEQUENCE bench_ids.users_id_seq INCREMENT BY " + ALLOCATION_SIZE);
+            statement.execute("CREATE SEQUENCE bench_ids.aws_accounts_id_seq INCREMENT BY " + ALLOCATION_SIZE);
+        }
+        connection.setAutoCommit(false);
+    }
+
+    // keeps the tables, and therefore index depth, the same size for every iteration
+    @Setup(Level.Iteration)
+    public void truncate() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("TRUNCATE bench_ids.users_identity, bench_ids.aws_accounts_identity, bench_ids.users_pooled, bench_ids.aws_accounts_pooled");
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void drop() throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA bench_ids CASCADE");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * ROWS)
+    public long identity() throws SQLException {
+        long checksum = 0;
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO bench_ids.users_identity (first_name, email, role, active, created_at, token_version) VALUES (?, ?, 'CUSTOMER', true, now(), 0)",
+                Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement accounts = connection.prepareStatement(
+                     "INSERT INTO bench_ids.aws_accounts_identity (account_id, account_alias, active, created_at) VALUES (?, ?, true, now())",
+                     Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < ROWS; i++) {
+                long n = ++sequence;
+                users.setString(1, "User" + n);
+                users.setString(2, "user" + n + "@bench.local");
+                checksum += insertReturningId(users);
+                accounts.setString(1, String.valueOf(100_000_000_000L + n));
+                accounts.setString(2, "Account-" + n);
+                checksum += insertReturningId(accounts);
+            }
+        }
+        connection.commit();
+        return checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * ROWS)
+    public long pooledBatched() throws SQLException {
+        long checksum = 0;
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO bench_ids.users_pooled (id, first_name, email, role, active, created_at, token_version) VALUES (?, ?, ?, 'CUSTOMER', true, now(), 0)");
+             PreparedStatement accounts = connection.prepareStatement(
+                     "INSERT INTO bench_ids.aws_accounts_pooled (id, account_id, account_alias, active, created_at) VALUES (?, ?, ?, true, now())");
+             PreparedStatement nextUserIds = connection.prepareStatement("SELECT nextval('bench_ids.users_id_seq')");
+             PreparedStatement nextAccountIds = connection.prepareStatement("SELECT nextval('bench_ids.aws_accounts_id_seq')")) {
+            // Hibernate orders the inserts of a flush by table (order_inserts), so users and accounts batch separately
+            for (int i = 0; i < ROWS; i += ALLOCATION_SIZE) {
+                long hi = nextValue(nextUserIds);
+                for (int j = 0; j < ALLOCATION_SIZE && i + j < ROWS; j++) {
+                    long n = sequence + i + j + 1;
+                    users.setLong(1, hi - ALLOCATION_SIZE + 1 + j);
+                    users.setString(2, "User" + n);
+                    users.setString(3, "user" + n + "@bench.local");
+                    users.addBatch();
+                }
+                checksum += sum(users.executeBatch());
+            }
+            for (int i = 0; i < ROWS; i += ALLOCATION_SIZE) {
+                long hi = nextValue(nextAccountIds);
+                for (int j = 0; j < ALLOCATION_SIZE && i + j < ROWS; j++) {
+                    long n = sequence + i + j + 1;
+                    accounts.setLong(1, hi - ALLOCATION_SIZE + 1 + j);
+                    accounts.setString(2, String.valueOf(100_000_000_000L + n));
+                    accounts.setString(3, "Account-" + n);
+                    accounts.addBatch();
+                }
+                checksum += sum(accounts.executeBatch());
+            }
+        }
+        sequence += ROWS;
+        connection.commit();
+        return checksum;
+    }
+
+    private static long insertReturningId(PreparedStatement statement) throws SQLException {
+        statement.executeUpdate();
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            keys.next();
+            return keys.getLong(1);
+        }
+    }
+
+    private static long nextValue(PreparedStatement statement) throws SQLException {
+        try (ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // with reWriteBatchedInserts the driver reports SUCCESS_NO_INFO (-2) per row
+    private static long sum(int[] counts) {
+        long total = 0;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,82 @@
+package com.cloudkeeper.cloudbalance_backend.benchmark;
+
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevel;
+import com.cloudkeeper.cloudbalance_backend.logging.MessageFormatter;
+import com.cloudkeeper.cloudbalance_backend.logging.appender.LogLineEncoder;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning one DEBUG statement of the auth filter into file bytes.
+ * legacy : the previous MyLogger path (fresh StringBuilder, LocalDateTime.now().format, String.format,
+ * String.getBytes). garbageFree : MessageFormatter into a reused buffer, copy into a ring slot,
+ * LogLineEncoder into a direct ByteBuffer. Compare gc.alloc.rate.norm with -PjmhProfilers=gc.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LogFormattingBenchmark {
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final String MESSAGE = "Authenticated user {} ({}) with token version {} for {}";
+
+    private final Long userId = 4_200_042L;
+    private final String email = "jane.doe@cloudkeeper.com";
+    private final Integer tokenVersion = 7;
+    private final String path = "/api/accounts/assigned";
+    private final String threadName = Thread.currentThread().getName();
+
+    private final StringBuilder formatBuffer = new StringBuilder(256);
+    private final StringBuilder slot = new StringBuilder(256);
+    private final LogLineEncoder encoder = new LogLineEncoder();
+    private final ByteBuffer out = ByteBuffer.allocateDirect(64 * 1024);
+
+    @Benchmark
+    public int legacy() {
+        String message = legacyFormatMessage(MESSAGE, userId, email, tokenVersion, path);
+        String timestamp = LocalDateTime.now().format(DATE_TIME_FORMATTER);
+        String logMessage = String.format("[%s] [%s] [%s] [%s] - %s",
+                timestamp, threadName, LogLevel.DEBUG.name(), "JwtAuthenticationFilter", message);
+        return (logMessage + System.lineSeparator()).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Benchmark
+    public int garbageFree() {
+        formatBuffer.setLength(0);
+        MessageFormatter.formatTo(formatBuffer, MESSAGE, userId, email, tokenVersion, path);
+        slot.setLength(0);
+        slot.append(formatBuffer);
+
+        encoder.format(LogLevel.DEBUG, System.currentTimeMillis(), threadName, "JwtAuthenticationFilter", slot, null);
+        out.clear();
+        encoder.encode(out, 0);
+        return out.position();
+    }
+
+    // MyLogger.formatMessage before the garbage-free rewrite
+    private static String legacyFormatMessage(String message, Object... args) {
+        StringBuilder result = new StringBuilder();
+        int argIndex = 0;
+        int length = message.length();
+        for (int i = 0; i < length; i++) {
+            char current = message.charAt(i);
+            if (current == '{' && i + 1 < length && message.charAt(i + 1) == '}') {
+                if (argIndex < args.length) {
+                    result.append(args[argIndex]);
+                    argIndex++;
+                } else {
+                    result.append("{}");
+                }
+                i++;
+            } else {
+                result.append(current);
+            }
+        }
+        return result.toString();
+    }
+}
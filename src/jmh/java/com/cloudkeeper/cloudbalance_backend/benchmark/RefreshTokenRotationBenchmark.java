@@ -0,0 +1,187 @@
+package com.cloudkeeper.cloudbalance_backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Refresh-token rotation and latest-token lookup with 1M stored tokens (100k users, 10 tokens each,
+ * 3 active devices per user). The legacy table has the Hibernate-generated schema and is queried the
+ * way the old repository did; the new table carries the V2 fingerprint column and indexes.
+ * Needs a local PostgreSQL (-Dbench.db.url / -Dbench.db.user / -Dbench.db.password), everything
+ * lives in a throwaway bench_refresh schema.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class RefreshTokenRotationBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int TOKENS_PER_USER = 10;
+    private static final int ACTIVE_DEVICES = 3;
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/126.0.0.0 Safari/537.36 #";
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        try (Connection connection = BenchmarkSupport.jdbcConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS bench_refresh CASCADE");
+            statement.execute("CREATE SCHEMA bench_refresh");
+            statement.execute("CREATE TABLE bench_refresh.users (id BIGINT PRIMARY KEY, token_version INTEGER NOT NULL)");
+            for (String table : new String[]{"legacy_tokens", "tokens"}) {
+                statement.execute("""
+                        CREATE TABLE bench_refresh.%s (
+                            id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                            user_id BIGINT NOT NULL REFERENCES bench_refresh.users (id),
+                            token VARCHAR(255) NOT NULL UNIQUE,
+                            expiry_date TIMESTAMPTZ NOT NULL,
+                            device_info VARCHAR(255) NOT NULL,
+                            device_fingerprint CHAR(64),
+                            ip_address VARCHAR(255) NOT NULL,
+                            token_version INTEGER NOT NULL,
+                            last_activity_time TIMESTAMPTZ NOT NULL,
+                            revoked BOOLEAN NOT NULL,
+                            created_at TIMESTAMPTZ NOT NULL)
+                        """.formatted(table));
+            }
+
+            statement.execute("INSERT INTO bench_refresh.users SELECT g, 0 FROM generate_series(1, " + USERS + ") g");
+            for (String table : new String[]{"legacy_tokens", "tokens"}) {
+                statement.execute("""
+                        INSERT INTO bench_refresh.%s (user_id, token, expiry_date, device_info, device_fingerprint, ip_address,
+                                                      token_version, last_activity_time, revoked, created_at)
+                        SELECT u, gen_random_uuid()::text, now() + interval '7 days', '%s' || d,
+                               encode(sha256(convert_to('%s' || d, 'UTF8')), 'hex'), '127.0.0.1', 0,
+                               now(), d >= %d, now() - (d || ' minutes')::interval
+                        FROM generate_series(1, %d) u, generate_series(0, %d) d
+                        """.formatted(table, USER_AGENT, USER_AGENT, ACTIVE_DEVICES, USERS, TOKENS_PER_USER - 1));
+            }
+            statement.execute("CREATE UNIQUE INDEX ON bench_refresh.tokens (user_id, device_fingerprint) WHERE revoked = false");
+            statement.execute("CREATE INDEX ON bench_refresh.tokens (user_id, created_at DESC) WHERE revoked = false");
+            statement.execute("ANALYZE bench_refresh.legacy_tokens");
+            statement.execute("ANALYZE bench_refresh.tokens");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void drop() throws SQLException {
+        try (Connection connection = BenchmarkSupport.jdbcConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA bench_refresh CASCADE");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Session {
+        Connection connection;
+        PreparedStatement findUser;
+        PreparedStatement legacyFindByDevice;
+        PreparedStatement legacyUpdate;
+        PreparedStatement upsert;
+        PreparedStatement legacyLatest;
+        PreparedStatement latestLimitOne;
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            connection = BenchmarkSupport.jdbcConnection();
+            findUser = connection.prepareStatement("SELECT id, token_version FROM bench_refresh.users WHERE id = ?");
+            legacyFindByDevice = connection.prepareStatement(
+                    "SELECT id FROM bench_refresh.legacy_tokens WHERE user_id = ? AND device_info = ? AND revoked = false");
+            legacyUpdate = connection.prepareStatement(
+                    "UPDATE bench_refresh.legacy_tokens SET last_activity_time = ?, expiry_date = ? WHERE id = ?");
+            upsert = connection.prepareStatement("""
+                    INSERT INTO bench_refresh.tokens (user_id, token, expiry_date, device_info, device_fingerprint, ip_address,
+                                                      token_version, last_activity_time, revoked, created_at)
+                    SELECT u.id, ?, ?, ?, encode(sha256(convert_to(?, 'UTF8')), 'hex'), '127.0.0.1', u.token_version, ?, false, ?
+                    FROM bench_refresh.users u WHERE u.id = ?
+                    ON CONFLICT (user_id, device_fingerprint) WHERE revoked = false
+                    DO UPDATE SET expiry_date = EXCLUDED.expiry_date, last_activity_time = EXCLUDED.last_activity_time
+                    RETURNING id, token
+                    """);
+            legacyLatest = connection.prepareStatement(
+                    "SELECT * FROM bench_refresh.legacy_tokens WHERE user_id = ? AND revoked = false ORDER BY created_at DESC");
+            latestLimitOne = connection.prepareStatement(
+                    "SELECT * FROM bench_refresh.tokens WHERE user_id = ? AND revoked = false ORDER BY created_at DESC LIMIT 1");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    // previous createRefreshToken : findById, raw User-Agent lookup, then save of the loaded entity
+    @Benchmark
+    public long legacyRotate(Session session) throws SQLException {
+        long userId = randomUserId();
+        Timestamp now = Timestamp.from(Instant.now());
+        session.findUser.setLong(1, userId);
+        try (ResultSet rs = session.findUser.executeQuery()) {
+            rs.next();
+        }
+        session.legacyFindByDevice.setLong(1, userId);
+        session.legacyFindByDevice.setString(2, USER_AGENT + randomActiveDevice());
+        long id;
+        try (ResultSet rs = session.legacyFindByDevice.executeQuery()) {
+            if (!rs.next()) {
+                return -1;
+            }
+            id = rs.getLong(1);
+        }
+        session.legacyUpdate.setTimestamp(1, now);
+        session.legacyUpdate.setTimestamp(2, Timestamp.from(now.toInstant().plusSeconds(604_800)));
+        session.legacyUpdate.setLong(3, id);
+        session.legacyUpdate.executeUpdate();
+        return id;
+    }
+
+    @Benchmark
+    public long upsertRotate(Session session) throws SQLException {
+        Timestamp now = Timestamp.from(Instant.now());
+        String deviceInfo = USER_AGENT + randomActiveDevice();
+        session.upsert.setString(1, UUID.randomUUID().toString());
+        session.upsert.setTimestamp(2, Timestamp.from(now.toInstant().plusSeconds(604_800)));
+        session.upsert.setString(3, deviceInfo);
+        session.upsert.setString(4, deviceInfo);
+        session.upsert.setTimestamp(5, now);
+        session.upsert.setTimestamp(6, now);
+        session.upsert.setLong(7, randomUserId());
+        try (ResultSet rs = session.upsert.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : -1;
+        }
+    }
+
+    // previous findTopBy... with a JPQL ORDER BY but no LIMIT, every active row is transferred
+    @Benchmark
+    public long legacyLatestToken(Session session) throws SQLException {
+        session.legacyLatest.setLong(1, randomUserId());
+        try (ResultSet rs = session.legacyLatest.executeQuery()) {
+            long first = -1;
+            while (rs.next()) {
+                if (first == -1) {
+                    first = rs.getLong("id");
+                }
+            }
+            return first;
+        }
+    }
+
+    @Benchmark
+    public long latestTokenLimitOne(Session session) throws SQLException {
+        session.latestLimitOne.setLong(1, randomUserId());
+        try (ResultSet rs = session.latestLimitOne.executeQuery()) {
+            return rs.next() ? rs.getLong("id") : -1;
+        }
+    }
+
+    private static long randomUserId() {
+        return 1 + ThreadLocalRandom.current().nextInt(USERS);
+    }
+
+    private static int randomActiveDevice() {
+        return ThreadLocalRandom.current().nextInt(ACTIVE_DEVICES);
+    }
+}
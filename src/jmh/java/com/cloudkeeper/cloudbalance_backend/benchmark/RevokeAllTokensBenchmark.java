@@ -0,0 +1,119 @@
+package com.cloudkeeper.cloudbalance_backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.sql.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Force-login revocation latency for users holding 100+ refresh tokens.
+ * legacy : load active tokens, one UPDATE per token (saveAll without JDBC batching) and one Redis SET
+ * per token for the old blacklist. bulk : one UPDATE for the user plus the single token-version write.
+ * Needs local PostgreSQL and Redis (see BenchmarkSupport), tables live in a throwaway bench_revoke schema.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RevokeAllTokensBenchmark {
+
+    private static final int USERS = 200;
+    private static final long USER_ID_OFFSET = 900_000_000L;
+
+    @Param({"100", "250"})
+    private int tokensPerUser;
+
+    private Connection connection;
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private long userId;
+
+    @Setup(Level.Trial)
+    public void seed() throws SQLException {
+        connection = BenchmarkSupport.jdbcConnection();
+        connectionFactory = BenchmarkSupport.redisConnectionFactory();
+        redisTemplate = BenchmarkSupport.redisTemplate(connectionFactory);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA IF EXISTS bench_revoke CASCADE");
+            statement.execute("CREATE SCHEMA bench_revoke");
+            statement.execute("""
+                    CREATE TABLE bench_revoke.refresh_tokens (
+                        id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                        user_id BIGINT NOT NULL,
+                        token VARCHAR(255) NOT NULL UNIQUE,
+                        revoked BOOLEAN NOT NULL)
+                    """);
+            statement.execute("""
+                    INSERT INTO bench_revoke.refresh_tokens (user_id, token, revoked)
+                    SELECT u, gen_random_uuid()::text, false
+                    FROM generate_series(1, %d) u, generate_series(1, %d) t
+                    """.formatted(USERS, tokensPerUser));
+            statement.execute("CREATE INDEX ON bench_revoke.refresh_tokens (user_id) WHERE revoked = false");
+            statement.execute("ANALYZE bench_revoke.refresh_tokens");
+        }
+    }
+
+    // every measured call starts from a user whose tokens are all active again
+    @Setup(Level.Invocation)
+    public void reactivate() throws SQLException {
+        userId = 1 + ThreadLocalRandom.current().nextInt(USERS);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE bench_revoke.refresh_tokens SET revoked = false WHERE user_id = ?")) {
+            statement.setLong(1, userId);
+            statement.executeUpdate();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void drop() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP SCHEMA bench_revoke CASCADE");
+        }
+        connection.close();
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public int legacyPerTokenRevoke() throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        List<String> tokens = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id, token FROM bench_revoke.refresh_tokens WHERE user_id = ? AND revoked = false")) {
+            select.setLong(1, userId);
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                    tokens.add(rs.getString(2));
+                }
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE bench_revoke.refresh_tokens SET revoked = true WHERE id = ?")) {
+            for (Long id : ids) {
+                update.setLong(1, id);
+                update.executeUpdate();
+            }
+        }
+        for (String token : tokens) {
+            redisTemplate.opsForValue().set("bench:blacklist:token:" + token, "revoked", Duration.ofSeconds(60));
+        }
+        return ids.size();
+    }
+
+    @Benchmark
+    public int bulkRevoke() throws SQLException {
+        int revoked;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE bench_revoke.refresh_tokens SET revoked = true WHERE user_id = ? AND revoked = false")) {
+            update.setLong(1, userId);
+            revoked = update.executeUpdate();
+        }
+        redisTemplate.opsForValue().set("bench:user:token:version:" + (USER_ID_OFFSET + userId), "1", Duration.ofSeconds(60));
+        return revoked;
+    }
+}
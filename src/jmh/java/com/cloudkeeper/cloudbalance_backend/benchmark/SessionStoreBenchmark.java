@@ -0,0 +1,149 @@
+package com.cloudkeeper.cloudbalance_backend.benchmark;
+
+import com.cloudkeeper.cloudbalance_backend.entity.UserSessionRedis;
+import com.cloudkeeper.cloudbalance_backend.repository.redis.UserSessionRedisStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session reads and writes with 10k users holding 3 sessions each.
+ * The legacy side replays the commands the @RedisHash repository issued (index sets, phantom copy,
+ * one HGETALL per indexed id), the store side goes through UserSessionRedisStore.
+ * Needs a local Redis (-Dbench.redis.host / -Dbench.redis.port), keys use a reserved user id range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class SessionStoreBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int SESSIONS_PER_USER = 3;
+    private static final long USER_ID_OFFSET = 900_000_000L;
+    private static final long TTL_SECONDS = 1800;
+    private static final String LEGACY_KEYSPACE = "bench_user_sessions";
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private UserSessionRedisStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        connectionFactory = BenchmarkSupport.redisConnectionFactory();
+        redisTemplate = BenchmarkSupport.redisTemplate(connectionFactory);
+        store = new UserSessionRedisStore(redisTemplate);
+
+        for (int u = 0; u < USERS; u++) {
+            long userId = USER_ID_OFFSET + u;
+            for (int s = 0; s < SESSIONS_PER_USER; s++) {
+                UserSessionRedis session = newSession(userId, userId + "-" + s);
+                legacySave(session);
+                store.save(session);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deleteMatching(LEGACY_KEYSPACE + "*");
+        for (int u = 0; u < USERS; u++) {
+            long userId = USER_ID_OFFSET + u;
+            store.deleteAll(store.findByUserId(userId));
+        }
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public List<UserSessionRedis> legacyFindByUserId() {
+        long userId = randomUserId();
+        Set<String> ids = redisTemplate.opsForSet().members(LEGACY_KEYSPACE + ":userId:" + userId);
+        List<UserSessionRedis> sessions = new ArrayList<>();
+        for (String id : Objects.requireNonNull(ids)) {
+            Map<Object, Object> hash = redisTemplate.opsForHash().entries(LEGACY_KEYSPACE + ":" + id);
+            if (!hash.isEmpty()) {
+                sessions.add(UserSessionRedis.builder().sessionId(id).userId(userId).build());
+            }
+        }
+        return sessions;
+    }
+
+    @Benchmark
+    public List<UserSessionRedis> storeFindByUserId() {
+        return store.findByUserId(randomUserId());
+    }
+
+    @Benchmark
+    public void legacyCreateAndDelete() {
+        long userId = randomUserId();
+        UserSessionRedis session = newSession(userId, "tmp-" + UUID.randomUUID());
+        legacySave(session);
+        String key = LEGACY_KEYSPACE + ":" + session.getSessionId();
+        redisTemplate.delete(List.of(key, key + ":phantom", key + ":idx"));
+        redisTemplate.opsForSet().remove(LEGACY_KEYSPACE, session.getSessionId());
+        redisTemplate.opsForSet().remove(LEGACY_KEYSPACE + ":userId:" + userId, session.getSessionId());
+    }
+
+    @Benchmark
+    public void storeCreateAndDelete() {
+        UserSessionRedis session = newSession(randomUserId(), "tmp-" + UUID.randomUUID());
+        store.save(session);
+        store.delete(session);
+    }
+
+    // writes issued per save by the keyspace-event enabled repository, sequentially
+    private void legacySave(UserSessionRedis session) {
+        String key = LEGACY_KEYSPACE + ":" + session.getSessionId();
+        Map<String, String> fields = Map.of(
+                "_class", UserSessionRedis.class.getName(),
+                "sessionId", session.getSessionId(),
+                "userId", String.valueOf(session.getUserId()),
+                "loginTime", session.getLoginTime().toString(),
+                "lastActivityTime", session.getLastActivityTime().toString(),
+                "active", "1",
+                "ttl", String.valueOf(TTL_SECONDS));
+        redisTemplate.delete(key);
+        redisTemplate.opsForHash().putAll(key, fields);
+        redisTemplate.opsForSet().add(LEGACY_KEYSPACE, session.getSessionId());
+        redisTemplate.opsForSet().add(LEGACY_KEYSPACE + ":userId:" + session.getUserId(), session.getSessionId());
+        redisTemplate.opsForSet().add(key + ":idx", LEGACY_KEYSPACE + ":userId:" + session.getUserId());
+        redisTemplate.expire(key, TTL_SECONDS, TimeUnit.SECONDS);
+        redisTemplate.opsForHash().putAll(key + ":phantom", fields);
+        redisTemplate.expire(key + ":phantom", TTL_SECONDS + 300, TimeUnit.SECONDS);
+    }
+
+    private void deleteMatching(String pattern) {
+        List<String> keys = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(1000).build())) {
+            cursor.forEachRemaining(keys::add);
+        }
+        if (!keys.isEmpty()) {
+            redisTemplate.delete(keys);
+        }
+    }
+
+    private static UserSessionRedis newSession(long userId, String sessionId) {
+        Instant now = Instant.now();
+        return UserSessionRedis.builder()
+                .sessionId(sessionId)
+                .userId(userId)
+                .email("bench-" + userId + "@cloudbalance.com")
+                .deviceName("Desktop")
+                .loginTime(now)
+                .lastActivityTime(now)
+                .active(true)
+                .ttl(TTL_SECONDS)
+                .build();
+    }
+
+    private static long randomUserId() {
+        return USER_ID_OFFSET + ThreadLocalRandom.current().nextInt(USERS);
+    }
+}
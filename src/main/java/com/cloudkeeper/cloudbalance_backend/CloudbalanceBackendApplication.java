@@ -3,11 +3,22 @@ package com.cloudkeeper.cloudbalance_backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Map;
+
 @SpringBootApplication
 public class CloudbalanceBackendApplication {
 
     static void main(String[] args) {
-        SpringApplication.run(CloudbalanceBackendApplication.class, args);
+        SpringApplication application = new SpringApplication(CloudbalanceBackendApplication.class);
+        // metrics are scraped from /actuator/prometheus on the internal management port and one request in ten
+        // is traced, the PostgreSQL driver sends Hibernate's insert batches as multi-row statements;
+        // overridable like any other property
+        application.setDefaultProperties(Map.of(
+                "management.endpoints.web.exposure.include", "health,prometheus",
+                "management.server.port", "9090",
+                "management.tracing.sampling.probability", "0.1",
+                "spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", "true"));
+        application.run(args);
     }
 
 }
@@ -0,0 +1,76 @@
+package com.cloudkeeper.cloudbalance_backend.config;
+
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.logging.context.LogContextTaskDecorator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncConfig.class);
+
+    @Value("${app.async.refresh-activity.queue-capacity:10000}")
+    private int refreshActivityQueueCapacity;
+    // 0 sizes the pool to the available cores, hashing is pure CPU work
+    @Value("${app.security.password.threads:0}")
+    private int passwordHashingThreads;
+    @Value("${app.security.password.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+    @Value("${app.assignments.job-threads:2}")
+    private int assignmentJobThreads;
+    @Value("${app.assignments.job-queue-capacity:100}")
+    private int assignmentJobQueueCapacity;
+
+    // picked up by Boot for its own task executors as well, including the virtual-thread one
+    @Bean
+    public LogContextTaskDecorator logContextTaskDecorator() {
+        return new LogContextTaskDecorator();
+    }
+
+    // best-effort lastActivityTime writes deferred off the request thread, dropped when saturated
+    @Bean
+    public ThreadPoolTaskExecutor refreshActivityExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(refreshActivityQueueCapacity);
+        executor.setThreadNamePrefix("refresh-activity-");
+        executor.setTaskDecorator(logContextTaskDecorator());
+        executor.setRejectedExecutionHandler((task, pool) -> logger.warn("Refresh activity queue full, dropping update"));
+        executor.initialize();
+        return executor;
+    }
+
+    // password hash/verify pool, rejects (TaskRejectedException) instead of growing when saturated
+    @Bean
+    public ThreadPoolTaskExecutor passwordHashingExecutor() {
+        int threads = passwordHashingThreads > 0 ? passwordHashingThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(passwordHashingQueueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setTaskDecorator(logContextTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+
+    // background matrix assignment jobs, rejects (TaskRejectedException) when too many are queued
+    @Bean
+    public ThreadPoolTaskExecutor assignmentJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(assignmentJobThreads);
+        executor.setMaxPoolSize(assignmentJobThreads);
+        executor.setQueueCapacity(assignmentJobQueueCapacity);
+        executor.setThreadNamePrefix("assignment-job-");
+        executor.setTaskDecorator(logContextTaskDecorator());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -9,7 +9,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 
@@ -22,7 +24,9 @@ public class DataInitializer implements CommandLineRunner {
     private final PasswordEncoder passwordEncoder;
     private final Random random = new Random();
 
+    // one transaction, so the seed rows are flushed together as batched inserts per table
     @Override
+    @Transactional
     public void run(String... args) {
         if (userRepository.count() > 0) {
 
@@ -72,9 +76,12 @@ public class DataInitializer implements CommandLineRunner {
                 "arn:aws:iam::555666777888:role/CloudBalanceRole"
         );
 
+        accountRepository.saveAll(List.of(prodAccount, devAccount, stagingAccount));
+
         // Assign accounts to customers
-        assignAccountToUser(customer1, Set.of(prodAccount, devAccount));
-        assignAccountToUser(customer2, Set.of(stagingAccount));
+        customer1.setAssignedAccounts(Set.of(prodAccount, devAccount));
+        customer2.setAssignedAccounts(Set.of(stagingAccount));
+        userRepository.saveAll(List.of(admin, customer1, customer2, readonly));
 
 
     }
@@ -89,7 +96,7 @@ public class DataInitializer implements CommandLineRunner {
                 .role(role)
                 .active(true)
                 .build();
-        return userRepository.save(user);
+        return user;
     }
 
     private AwsAccount createAwsAccount(String accountId, String accountName, String roleArn) {
@@ -100,12 +107,7 @@ public class DataInitializer implements CommandLineRunner {
                 .externalId("external-id-" + accountId)
                 .active(true)
                 .build();
-        return accountRepository.save(account);
-    }
-
-    private void assignAccountToUser(User user, Set<AwsAccount> accounts) {
-        user.setAssignedAccounts(accounts);
-        userRepository.save(user);
+        return account;
     }
 
 }
@@ -0,0 +1,15 @@
+package com.cloudkeeper.cloudbalance_backend.config;
+
+import org.springframework.boot.flyway.autoconfigure.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlywayConfig {
+
+    // databases created by Hibernate before migrations existed are baselined at V1 instead of failing
+    @Bean
+    public FlywayConfigurationCustomizer flywayBaselineCustomizer() {
+        return configuration -> configuration.baselineOnMigrate(true);
+    }
+}
@@ -1,14 +1,13 @@
 package com.cloudkeeper.cloudbalance_backend.config;
 
 import com.cloudkeeper.cloudbalance_backend.dto.response.AuthResponse;
-import com.cloudkeeper.cloudbalance_backend.entity.RefreshToken;
-import com.cloudkeeper.cloudbalance_backend.entity.User;
-import com.cloudkeeper.cloudbalance_backend.entity.UserSessionRedis;
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
 import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
-import com.cloudkeeper.cloudbalance_backend.repository.jpa.RefreshTokenRepository;
-import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
+import com.cloudkeeper.cloudbalance_backend.logging.context.LogContext;
 import com.cloudkeeper.cloudbalance_backend.service.*;
+import io.jsonwebtoken.Claims;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -19,13 +18,11 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.time.Instant;
 
 @Component
 @RequiredArgsConstructor
@@ -34,12 +31,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final AppUserDetailsService appUserDetailsService;
     private final TokenBlackListService tokenBlackListService;
+    private final TokenVersionService tokenVersionService;
     private final SessionManagementService sessionManagementService;
     private final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
-    private final UserRepository userRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
-    private final RefreshTokenService refreshTokenService;
+    private final AutoRefreshCoordinator autoRefreshCoordinator;
+    private final ObservationRegistry observationRegistry;
+
+    // tag values of app.auth.filter
+    private enum AuthOutcome {ANONYMOUS, AUTHENTICATED, REFRESHED, REJECTED}
 
     @Value("${jwt.access-token-expiration}")
     private long accessTokenExpiration;
@@ -59,6 +59,29 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             return;
         }
 
+        // the span parents the Redis and JPA spans of the blacklist, token version and session checks
+        Observation observation = Observation.createNotStarted("app.auth.filter", observationRegistry)
+                .contextualName("auth")
+                .start();
+        long startNanos = System.nanoTime();
+        AuthOutcome outcome = AuthOutcome.REJECTED;
+        try (Observation.Scope scope = observation.openScope()) {
+            outcome = authenticate(request, response);
+        } catch (IOException | RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome.name().toLowerCase()).stop();
+            LogContext.recordPhase("auth", System.nanoTime() - startNanos);
+        }
+
+        if (outcome != AuthOutcome.REJECTED) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    // the rejection response has been written when this returns REJECTED
+    private AuthOutcome authenticate(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String jwt = null;
 
         // Try 1: Get JWT from Authorization header (for mobile/API clients)
@@ -81,8 +104,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (jwt == null) {
             logger.debug("No JWT found - continuing without authentication");
-            filterChain.doFilter(request, response);
-            return;
+            return AuthOutcome.ANONYMOUS;
         }
 
         try {
@@ -90,50 +112,59 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (tokenBlackListService.isTokenBlacklisted(jwt)) {
                 logger.warn("BLACKLISTED token attempted");
                 sendErrorResponse(response, "Token has been revoked", HttpServletResponse.SC_UNAUTHORIZED);
-                return;
+                return AuthOutcome.REJECTED;
             }
             logger.debug("Token NOT blacklisted");
 
-            // 2. Extract user information (this might throw ExpiredJwtException)
-            String userEmail = null;
-            Long userId = null;
+            // 2. Extract user information, parsing the token once (this might throw ExpiredJwtException)
+            Claims claims;
             boolean tokenExpired = false;
 
             try {
-                userEmail = jwtService.extractUsername(jwt);
-                userId = jwtService.extractUserId(jwt);
-                logger.debug("Extracted - Email: {}, UserId: {}", userEmail, userId);
+                claims = jwtService.extractAllClaims(jwt);
             } catch (io.jsonwebtoken.ExpiredJwtException e) {
                 // Token expired - we'll attempt auto-refresh
                 logger.warn("Token expired during extraction - will attempt auto-refresh");
                 tokenExpired = true;
                 // Extract claims from expired token
-                userEmail = e.getClaims().getSubject();
-                userId = e.getClaims().get("userId", Long.class);
-                logger.debug("Extracted from expired token - Email: {}, UserId: {}", userEmail, userId);
+                claims = e.getClaims();
+            }
+
+            String userEmail = claims.getSubject();
+            Long userId = claims.get("userId", Long.class);
+            logger.debug("Extracted - Email: {}, UserId: {}", userEmail, userId);
+            LogContext.identify(userId, claims.get("sessionId", String.class));
+
+            // 3. Reject tokens issued before the user's last mass revocation (logout-all, force login)
+            // when Redis is down the version comes from the database, a revoked token must not pass then
+            if (!tokenVersionService.isTokenVersionCurrent(userId, claims.get("tokenVersion", Integer.class),
+                    () -> ((UserPrincipal) appUserDetailsService.loadUserByUsername(userEmail)).getTokenVersion())) {
+                logger.warn("REVOKED token version attempted for user : {}", userId);
+                sendErrorResponse(response, "Token has been revoked", HttpServletResponse.SC_UNAUTHORIZED);
+                return AuthOutcome.REJECTED;
             }
 
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.appUserDetailsService.loadUserByUsername(userEmail);
-                logger.debug("UserDetails loaded: {}", userDetails.getUsername());
+                UserPrincipal userDetails = this.appUserDetailsService.loadCachedUserByUsername(userEmail);
+                logger.debug("UserDetails loaded: {}", userDetails::getUsername);
 
-                // 3. Get session ID from JWT
-                String sessionId = jwtService.extractSessionId(jwt);
+                // 4. Get session ID from JWT
+                String sessionId = claims.get("sessionId", String.class);
 
                 if (sessionId == null) {
                     logger.warn("No sessionId in JWT token");
                     sendErrorResponse(response, "Invalid token", HttpServletResponse.SC_UNAUTHORIZED);
-                    return;
+                    return AuthOutcome.REJECTED;
                 }
                 logger.debug("Session ID from JWT: {}", sessionId);
 
-                // 4. Check if token is valid or needs refresh
+                // 5. Check if token is valid or needs refresh
                 boolean tokenWasRefreshed = false;
                 boolean isValid = false;
 
                 if (!tokenExpired) {
-                    // Token not expired yet, validate normally
-                    isValid = jwtService.isTokenValid(jwt, userDetails);
+                    // Token not expired yet and signature already verified, subject must match
+                    isValid = userEmail.equals(userDetails.getUsername());
                 }
 
                 if (tokenExpired || !isValid) {
@@ -147,24 +178,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     } else {
                         logger.warn("❌ Auto-refresh failed for session: {}", sessionId);
                         sendErrorResponse(response, "Session expired. Please login again.", HttpServletResponse.SC_UNAUTHORIZED);
-                        return;
+                        return AuthOutcome.REJECTED;
                     }
                 } else {
                     logger.debug("Token VALID - No refresh needed");
                 }
 
-                // 5. Validate session (idle timeout check)
+                // 6. Validate session (idle timeout check)
                 if (!sessionManagementService.isSessionValid(sessionId)) {
                     logger.warn("SESSION INVALID (idle timeout): {}", sessionId);
                     sendErrorResponse(response, "Session expired due to inactivity. Please login again.", HttpServletResponse.SC_UNAUTHORIZED);
-                    return;
+                    return AuthOutcome.REJECTED;
                 }
                 logger.debug("Session VALID");
 
-                // 6. Update session activity (keep alive)
+                // 7. Update session activity (keep alive)
                 sessionManagementService.updateSessionActivity(sessionId, userId);
 
-                // 7. Set Spring Security authentication context
+                // 8. Set Spring Security authentication context
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities()
@@ -176,78 +207,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 if (tokenWasRefreshed) {
                     logger.info("🔄 AUTO-REFRESH AUTH SET SUCCESSFULLY for user: {}", userEmail);
-                } else {
-                    logger.debug("✅ AUTHENTICATION SET SUCCESSFULLY for user: {}", userEmail);
+                    return AuthOutcome.REFRESHED;
                 }
+                logger.debug("✅ AUTHENTICATION SET SUCCESSFULLY for user: {}", userEmail);
             }
+            return AuthOutcome.AUTHENTICATED;
 
         } catch (io.jsonwebtoken.security.SignatureException e) {
             logger.error("Invalid JWT signature: {}", e.getMessage());
             sendErrorResponse(response, "Invalid token signature", HttpServletResponse.SC_UNAUTHORIZED);
-            return;
+            return AuthOutcome.REJECTED;
         } catch (io.jsonwebtoken.MalformedJwtException e) {
             logger.error("Malformed JWT: {}", e.getMessage());
             sendErrorResponse(response, "Malformed token", HttpServletResponse.SC_UNAUTHORIZED);
-            return;
+            return AuthOutcome.REJECTED;
         } catch (Exception e) {
             logger.error("JWT Authentication Exception: {}", e.getMessage(), e);
             sendErrorResponse(response, "Authentication failed", HttpServletResponse.SC_UNAUTHORIZED);
-            return;
+            return AuthOutcome.REJECTED;
         }
-
-        filterChain.doFilter(request, response);
     }
 
 
-    private AuthResponse performAutoRefresh(String sessionId, Long userId, UserDetails userDetails, HttpServletResponse response) {
+    private AuthResponse performAutoRefresh(String sessionId, Long userId, UserPrincipal userDetails, HttpServletResponse response) {
         try {
-            logger.info("Starting auto-refresh for session : {}, userId : {}", sessionId, userId);
-
-            // validate session exists and is active
-            UserSessionRedis session = sessionManagementService.findActiveSessionById(sessionId).orElse(null);
-            if (session == null) {
-                logger.warn("Session not found : {}", sessionId);
-                return null;
-            }
-
-            if (!session.getUserId().equals(userId)) {
-                logger.warn("Session userId mismatch. Expected: {}, Got: {}", session.getUserId(), userId);
-                return null;
-            }
-
-            // get user from database
-            User user = userRepository.findById(userId).orElse(null);
-            if (user == null) {
-                logger.warn("User not found: {}", userId);
-                return null;
-            }
-            logger.debug("User loaded : {}", user.getEmail());
-
-            // get latest valid refresh token
-            RefreshToken refreshToken = refreshTokenService.findLatestValidRefreshToken(userId).orElse(null);
-            if (refreshToken == null) {
-                logger.warn("No valid refresh token found for user : {}", userId);
-                return null;
-            }
-
-            // check if refresh token is expired
-            try {
-                refreshToken = refreshTokenService.verifyRefreshExpiration(refreshToken);
-            } catch (Exception e) {
-                logger.warn("Refresh token expired for user: {}", userId);
+            // concurrent requests of the same burst share one refresh
+            AuthResponse refreshed = autoRefreshCoordinator.refresh(sessionId, userId, userDetails);
+            if (refreshed == null) {
                 return null;
             }
 
-            // update refresh token activity timestamp
-            refreshToken.setLastActivityTime(Instant.now());
-            refreshTokenRepository.save(refreshToken);
-
-            // generate new access token
-            String newAccessToken = jwtService.generateAccessToken(userDetails, userId, user.getTokenVersion(), sessionId);
-            logger.info("Generated new access token for user : {}", user.getEmail());
-
             // set new access token in http only cookie
-            Cookie cookie = new Cookie("access_token", newAccessToken);
+            Cookie cookie = new Cookie("access_token", refreshed.getAccessToken());
             cookie.setHttpOnly(true);
             cookie.setSecure(false);
             cookie.setPath("/api");
@@ -258,16 +249,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             logger.debug("New access token cookie set.");
 
-            // update session activity
-            sessionManagementService.updateSessionActivity(sessionId, userId);
-
-            logger.info("Auto-refresh completed successfully for user : {}", user.getEmail());
-
-            return AuthResponse.builder()
-                    .accessToken(newAccessToken)
-                    .sessionId(sessionId)
-                    .expiresIn(accessTokenExpiration / 1000)
-                    .build();
+            return refreshed;
 
         } catch (Exception e) {
             logger.error("Auto-refresh failed : {}", e.getMessage(), e);
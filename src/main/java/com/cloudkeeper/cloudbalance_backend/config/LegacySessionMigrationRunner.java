@@ -0,0 +1,103 @@
+package com.cloudkeeper.cloudbalance_backend.config;
+
+import com.cloudkeeper.cloudbalance_backend.entity.UserSessionRedis;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.repository.redis.UserSessionRedisStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * One-off copy of sessions written by the old {@code @RedisHash("user_sessions")} repository into
+ * the {@link UserSessionRedisStore} layout, keeping each session's remaining TTL. Legacy hashes,
+ * phantom copies and index sets are removed afterwards. Enable with
+ * {@code app.security.session.migrate-legacy=true} for the first deployment only.
+ */
+@Component
+@Order(2)
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.security.session.migrate-legacy", havingValue = "true")
+public class LegacySessionMigrationRunner implements CommandLineRunner {
+
+    private static final String LEGACY_KEYSPACE = "user_sessions";
+    // session hashes only, skips user_sessions:userId:{id}, :idx and :phantom keys
+    private static final Pattern LEGACY_SESSION_KEY = Pattern.compile("^" + LEGACY_KEYSPACE + ":[^:]+$");
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacySessionMigrationRunner.class);
+    private final RedisTemplate<String, String> redisTemplate;
+    private final UserSessionRedisStore sessionRedisStore;
+
+    @Override
+    public void run(String... args) {
+        List<String> sessionKeys = new ArrayList<>();
+        List<String> leftoverKeys = new ArrayList<>();
+        leftoverKeys.add(LEGACY_KEYSPACE);
+
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(LEGACY_KEYSPACE + ":*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                if (LEGACY_SESSION_KEY.matcher(key).matches()) {
+                    sessionKeys.add(key);
+                } else {
+                    leftoverKeys.add(key);
+                }
+            }
+        }
+
+        int migrated = 0;
+        for (String key : sessionKeys) {
+            try {
+                if (migrate(key)) {
+                    migrated++;
+                }
+            } catch (Exception e) {
+                logger.warn("Skipping legacy session {} : {}", key, e.getMessage());
+            }
+            redisTemplate.delete(key);
+        }
+        redisTemplate.delete(leftoverKeys);
+
+        logger.info("Migrated {} of {} legacy sessions, removed {} index/phantom keys",
+                migrated, sessionKeys.size(), leftoverKeys.size());
+    }
+
+    private boolean migrate(String key) {
+        if (redisTemplate.type(key) != DataType.HASH) {
+            return false;
+        }
+        Long ttl = redisTemplate.getExpire(key);
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(key);
+        if (hash.isEmpty() || ttl == null || ttl == -2) {
+            return false;
+        }
+
+        // legacy converter wrote Instants as ISO-8601 strings and Booleans as "1"/"0"
+        UserSessionRedis session = UserSessionRedis.builder()
+                .sessionId(key.substring(LEGACY_KEYSPACE.length() + 1))
+                .userId(Long.valueOf((String) hash.get("userId")))
+                .email((String) hash.get("email"))
+                .deviceInfo((String) hash.get("deviceInfo"))
+                .deviceName((String) hash.get("deviceName"))
+                .ipAddress((String) hash.get("ipAddress"))
+                .loginTime(Instant.parse((String) hash.get("loginTime")))
+                .lastActivityTime(Instant.parse((String) hash.get("lastActivityTime")))
+                .active("1".equals(hash.get("active")) || "true".equals(hash.get("active")))
+                .ttl(ttl > 0 ? ttl : null)
+                .build();
+        sessionRedisStore.save(session);
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.cloudkeeper.cloudbalance_backend.config;
+
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// global and per-IP token buckets for login attempts, per-email limiting happens in AuthService once the body is parsed
+@Component
+@RequiredArgsConstructor
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitService rateLimitService;
+    private final Logger logger = LoggerFactory.getLogger(LoginRateLimitFilter.class);
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String requestURI = request.getRequestURI();
+        return !"POST".equals(request.getMethod())
+                || !(requestURI.endsWith("/auth/login") || requestURI.endsWith("/auth/force-login"));
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        // remoteAddr, not X-Forwarded-For : the header is client controlled, proxies are handled by server.forward-headers-strategy
+        String ipAddress = request.getRemoteAddr();
+
+        long retryAfterMs = rateLimitService.tryConsumeIp(ipAddress);
+        if (retryAfterMs == 0) {
+            retryAfterMs = rateLimitService.tryConsumeGlobal();
+        }
+        if (retryAfterMs > 0) {
+            logger.warn("Login attempt rate limited for ip : {}", ipAddress);
+            long retryAfterSeconds = Math.max(1, (retryAfterMs + 999) / 1000);
+            response.setStatus(429);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"success\":false,\"message\":\"Too many login attempts. Please try again later.\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
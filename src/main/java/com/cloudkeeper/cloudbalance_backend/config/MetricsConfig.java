@@ -0,0 +1,56 @@
+package com.cloudkeeper.cloudbalance_backend.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Latency distributions for the timers we alert on: our own app.* timers (controller methods,
+ * @Loggable methods, auth filter, Snowflake queries) plus the ones Boot records for HTTP requests,
+ * Spring Data repository calls and Lettuce commands. Each gets client-side p50/p95/p99, a Prometheus
+ * histogram for server-side quantiles across instances, and SLO buckets.
+ */
+@Configuration
+public class MetricsConfig {
+
+    private static final List<String> LATENCY_TIMERS = List.of(
+            "app.",
+            "http.server.requests",
+            "spring.data.repository.invocations",
+            "lettuce.command.completion");
+
+    // bucket boundaries in milliseconds, exposed as le="..." series next to the percentiles
+    @Value("${app.metrics.slo-ms:10,50,100,250,500,1000,2500,5000}")
+    private long[] sloMillis;
+    @Value("${app.metrics.max-expected-ms:30000}")
+    private long maxExpectedMillis;
+
+    @Bean
+    public MeterFilter latencyDistributionFilter() {
+        double[] slos = Arrays.stream(sloMillis).mapToDouble(ms -> Duration.ofMillis(ms).toNanos()).toArray();
+        DistributionStatisticConfig latency = DistributionStatisticConfig.builder()
+                .percentiles(0.5, 0.95, 0.99)
+                .percentilesHistogram(true)
+                .serviceLevelObjectives(slos)
+                .minimumExpectedValue((double) Duration.ofMillis(1).toNanos())
+                .maximumExpectedValue((double) Duration.ofMillis(maxExpectedMillis).toNanos())
+                .build();
+
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getType() != Meter.Type.TIMER || LATENCY_TIMERS.stream().noneMatch(id.getName()::startsWith)) {
+                    return config;
+                }
+                return latency.merge(config);
+            }
+        };
+    }
+}
@@ -0,0 +1,152 @@
+package com.cloudkeeper.cloudbalance_backend.config;
+
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevel;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.logging.context.LogContext;
+import com.cloudkeeper.cloudbalance_backend.logging.sampling.RequestLogSampler;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Opens the LogContext of a request and writes one structured "http.access" summary event when it
+ * completes: route, status, total time and the phase timings recorded by the auth filter and aspects.
+ * Runs ahead of the security chain so rejected requests are summarised as well.
+ * <p>
+ * Which summaries are written is up to the {@link RequestLogSampler}: errors and slow requests always,
+ * successful ones sampled per endpoint. Slow requests are the tail-latency outliers and are the only
+ * ones logged with full details (query string and masked headers).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    // upstream ids are echoed into logs and responses, accept only short opaque tokens
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{8,64}");
+
+    private static final Logger accessLogger = LoggerFactory.getLogger("http.access");
+    // requests that never reached a controller (404, rejected by security) share one sampling bucket
+    private static final String UNMATCHED_ENDPOINT = "unmatched";
+
+    private final RequestLogSampler sampler;
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain)
+            throws ServletException, IOException {
+
+        LogContext context = LogContext.start(resolveRequestId(request));
+        response.setHeader(REQUEST_ID_HEADER, context.getRequestId());
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            try {
+                writeSummary(request, response, context, failure);
+            } finally {
+                LogContext.clear();
+            }
+        }
+    }
+
+    private void writeSummary(HttpServletRequest request, HttpServletResponse response, LogContext context, Throwable failure) {
+        int status = failure != null && response.getStatus() < 400 ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus();
+        long durationNanos = context.elapsedNanos();
+        String endpoint = context.getHandler() != null ? context.getHandler() : UNMATCHED_ENDPOINT;
+        RequestLogSampler.Decision decision = sampler.decide(endpoint, status >= 400, durationNanos);
+        if (!decision.isLogged()) {
+            return;
+        }
+        LogLevel level = status >= 500 ? LogLevel.ERROR
+                : status >= 400 || decision == RequestLogSampler.Decision.SLOW ? LogLevel.WARN
+                : LogLevel.INFO;
+        if (!accessLogger.isEnabled(level)) {
+            return;
+        }
+
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("method", request.getMethod());
+        fields.put("path", request.getRequestURI());
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            fields.put("route", route.toString());
+        }
+        if (context.getHandler() != null) {
+            fields.put("handler", context.getHandler());
+        }
+        fields.put("status", status);
+        fields.put("durationMs", Math.round(durationNanos / 1_000.0) / 1_000.0);
+        fields.put("timings", context.phaseMillis());
+        fields.put("clientIp", request.getRemoteAddr());
+        fields.put("userAgent", request.getHeader("User-Agent"));
+        String error = failure != null ? failure.getClass().getSimpleName() : context.getError();
+        if (error != null) {
+            fields.put("error", error);
+        }
+        switch (decision) {
+            case SAMPLED -> {
+                int rate = sampler.rateOf(endpoint);
+                if (rate > 1) {
+                    // one event stands for this many requests
+                    fields.put("sampleRate", rate);
+                }
+            }
+            case SLOW -> {
+                fields.put("slow", true);
+                fields.put("query", request.getQueryString());
+                fields.put("headers", getHeaders(request));
+            }
+            default -> {
+            }
+        }
+        accessLogger.event(level, "request completed", fields);
+    }
+
+    private Map<String, String> getHeaders(HttpServletRequest request) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        Enumeration<String> headerNames = request.getHeaderNames();
+
+        while (headerNames.hasMoreElements()) {
+            String headerName = headerNames.nextElement();
+            // mask sensitive headers
+            if (headerName.equalsIgnoreCase("Authorization")) {
+                headers.put(headerName, "Bearer ***");
+            } else if (headerName.equalsIgnoreCase("Cookie")) {
+                headers.put(headerName, "***");
+            } else {
+                headers.put(headerName, request.getHeader(headerName));
+            }
+        }
+        return headers;
+    }
+
+    private String resolveRequestId(HttpServletRequest request) {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId != null && VALID_REQUEST_ID.matcher(requestId).matches()) {
+            return requestId;
+        }
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
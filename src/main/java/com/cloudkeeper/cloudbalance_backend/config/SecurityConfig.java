@@ -1,6 +1,9 @@
 package com.cloudkeeper.cloudbalance_backend.config;
 
+import com.cloudkeeper.cloudbalance_backend.helper.security.BoundedPasswordEncoder;
 import com.cloudkeeper.cloudbalance_backend.service.AppUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -14,16 +17,22 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -32,7 +41,28 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final LoginRateLimitFilter loginRateLimitFilter;
     private final AppUserDetailsService appUserDetailsService;
+    private final ThreadPoolTaskExecutor passwordHashingExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // encoder used for new hashes, existing hashes of the other kind are upgraded on next login
+    @Value("${app.security.password.encoder:bcrypt}")
+    private String passwordEncoderId;
+    @Value("${app.security.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+    @Value("${app.security.password.wait-timeout-ms:5000}")
+    private long passwordWaitTimeoutMs;
+    @Value("${server.port:8080}")
+    private int serverPort;
+    @Value("${management.server.port:9090}")
+    private int managementPort;
+
+    private static final RequestMatcher PROMETHEUS = PathPatternRequestMatcher.withDefaults().matcher("/actuator/prometheus");
+
+    private boolean onManagementPort(HttpServletRequest request) {
+        return managementPort > 0 && managementPort != serverPort && request.getLocalPort() == managementPort;
+    }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
@@ -48,11 +78,16 @@ public class SecurityConfig {
                                 "/swagger-resources/**",
                                 "/webjars/**"
                         ).permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        // metric names reveal every controller and method, so the unauthenticated scrape is only
+                        // accepted on the management port, which is not reachable from outside the internal network
+                        .requestMatchers(request -> onManagementPort(request) && PROMETHEUS.matches(request)).permitAll()
                         .requestMatchers("/auth/logout").authenticated()
                         .requestMatchers("/user/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
+                .addFilterBefore(loginRateLimitFilter, UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
@@ -76,6 +111,8 @@ public class SecurityConfig {
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(appUserDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // rehashes on successful login when the stored hash uses outdated parameters
+        authProvider.setUserDetailsPasswordService(appUserDetailsService);
         return authProvider;
     }
 
@@ -86,7 +123,16 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", new BCryptPasswordEncoder(bcryptStrength),
+                "argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+        if (!encoders.containsKey(passwordEncoderId)) {
+            throw new IllegalStateException("Unsupported app.security.password.encoder : " + passwordEncoderId);
+        }
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(passwordEncoderId, encoders);
+        // hashes stored before the {id} prefix was introduced are plain bcrypt
+        delegating.setDefaultPasswordEncoderForMatches(encoders.get("bcrypt"));
+        return new BoundedPasswordEncoder(delegating, passwordHashingExecutor, passwordWaitTimeoutMs, meterRegistry);
     }
 
 }
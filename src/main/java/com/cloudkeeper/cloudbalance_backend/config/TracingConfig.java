@@ -0,0 +1,34 @@
+package com.cloudkeeper.cloudbalance_backend.config;
+
+import com.cloudkeeper.cloudbalance_backend.logging.appender.FileSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Spans come from the Observation API (controller, auth filter, @Loggable methods, repositories, Snowflake
+ * queries, Redis commands) and are head-sampled by management.tracing.sampling.probability, so unsampled
+ * requests only pay for their timers. Boot hands every SpanExporter bean to its batch processor: the file
+ * exporter below is on by default, OTLP is added by setting management.opentelemetry.tracing.export.otlp.endpoint.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Value("${app.tracing.file.path:logs/spans.log}")
+    private String spanFile;
+    @Value("${app.tracing.file.max-file-size-mb:100}")
+    private long maxFileSizeMb;
+    @Value("${app.tracing.file.max-history:7}")
+    private int maxHistory;
+
+    @Bean
+    @ConditionalOnProperty(name = "app.tracing.file.enabled", havingValue = "true", matchIfMissing = true)
+    public SpanExporter fileSpanExporter() throws IOException {
+        return new FileSpanExporter(Path.of(spanFile), maxFileSizeMb * 1024 * 1024, maxHistory);
+    }
+}
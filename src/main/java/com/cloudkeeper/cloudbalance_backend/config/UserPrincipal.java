@@ -17,11 +17,21 @@ public class UserPrincipal implements UserDetails {
     private final String email;
     private final String password;
     private final Boolean active;
+    private final Integer tokenVersion;
     private final Collection<? extends GrantedAuthority> authorities;
 
     //    factory method to create UserPrincipal from User entity
     public static UserPrincipal create(User user) {
-        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), user.getActive(), Collections.setOf(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getPassword(), user.getActive(), user.getTokenVersion(), Collections.setOf(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
+    }
+
+    // copy without the password hash, used for cached principals that never authenticate credentials
+    public UserPrincipal withoutPassword() {
+        return new UserPrincipal(id, email, null, active, tokenVersion, authorities);
+    }
+
+    public UserPrincipal withPassword(String newPassword) {
+        return new UserPrincipal(id, email, newPassword, active, tokenVersion, authorities);
     }
 
     public Long getId(){
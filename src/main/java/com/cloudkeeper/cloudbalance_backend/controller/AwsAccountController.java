@@ -1,10 +1,14 @@
 package com.cloudkeeper.cloudbalance_backend.controller;
 
 import com.cloudkeeper.cloudbalance_backend.config.UserPrincipal;
+import com.cloudkeeper.cloudbalance_backend.dto.request.AccountAssignmentMatrixRequest;
 import com.cloudkeeper.cloudbalance_backend.dto.request.AccountAssignmentRequest;
 import com.cloudkeeper.cloudbalance_backend.dto.request.AwsAccountCreateRequest;
+import com.cloudkeeper.cloudbalance_backend.dto.request.AwsAccountListRequest;
 import com.cloudkeeper.cloudbalance_backend.dto.response.ApiResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.AssignmentJobResponse;
 import com.cloudkeeper.cloudbalance_backend.dto.response.AwsAccountResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.CursorPageResponse;
 import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
 import com.cloudkeeper.cloudbalance_backend.helper.roleAnnotations.AdminOnly;
 import com.cloudkeeper.cloudbalance_backend.helper.roleAnnotations.CustomerOnly;
@@ -52,6 +56,15 @@ public class AwsAccountController {
         return ResponseEntity.ok(ApiResponse.<List<AwsAccountResponse>>builder().success(true).message("Accounts retrieved successfully.").data(accounts).build());
     }
 
+    // ADMIN: List AWS accounts page by page
+    @GetMapping("/paged")
+    @ReadOnlyOrAbove
+    @Operation(summary = "Get aws accounts page", description = "Keyset paginated account listing, sorted by id or alias. Filter by active, alias prefix or assigned user; pass nextCursor as cursor for the following page. Set includeTotal for the matching count.")
+    public ResponseEntity<ApiResponse<CursorPageResponse<AwsAccountResponse>>> getAwsAccountsPage(@Valid AwsAccountListRequest request) {
+        CursorPageResponse<AwsAccountResponse> accounts = awsAccountService.getAwsAccounts(request);
+        return ResponseEntity.ok(ApiResponse.<CursorPageResponse<AwsAccountResponse>>builder().success(true).message("Accounts retrieved successfully.").data(accounts).build());
+    }
+
     // ADMIN: Assign account to customer
     @PostMapping("/assign")
     @AdminOnly
@@ -72,6 +85,26 @@ public class AwsAccountController {
         return ResponseEntity.ok(ApiResponse.<Void>builder().success(true).message("Account unassigned successfully.").build());
     }
 
+    // ADMIN: Assign or remove many accounts for many users at once
+    @PostMapping("/assign-matrix")
+    @AdminOnly
+    @Operation(summary = "Assign AWS accounts to users in bulk", description = "Assigns (or removes) every given account to (from) every given user. Small jobs complete within the request (200), large or async ones return 202 with a job id to poll.")
+    public ResponseEntity<ApiResponse<AssignmentJobResponse>> assignMatrix(@Valid @RequestBody AccountAssignmentMatrixRequest request) {
+        logger.info("Matrix {} request : {} users x {} accounts", request.getOperation(), request.getUserIds().size(), request.getAccountIds().size());
+        AssignmentJobResponse job = assignmentService.submitMatrix(request);
+        boolean queued = job.getStatus() == AssignmentJobResponse.Status.QUEUED;
+        return ResponseEntity.status(queued ? HttpStatus.ACCEPTED : HttpStatus.OK).body(ApiResponse.<AssignmentJobResponse>builder().success(job.getStatus() != AssignmentJobResponse.Status.FAILED).message(queued ? "Assignment job queued." : "Assignment job " + job.getStatus().name().toLowerCase() + ".").data(job).build());
+    }
+
+    // ADMIN: Progress of a matrix assignment job
+    @GetMapping("/assignment-jobs/{jobId}")
+    @AdminOnly
+    @Operation(summary = "Get assignment job status", description = "Progress and result of a bulk assignment job, kept for a day after its last update.")
+    public ResponseEntity<ApiResponse<AssignmentJobResponse>> getAssignmentJob(@PathVariable String jobId) {
+        AssignmentJobResponse job = assignmentService.getMatrixJob(jobId);
+        return ResponseEntity.ok(ApiResponse.<AssignmentJobResponse>builder().success(true).message("Assignment job retrieved successfully.").data(job).build());
+    }
+
     // Customer: Get my assigned accounts
     @GetMapping("/my-accounts")
     @CustomerOnly
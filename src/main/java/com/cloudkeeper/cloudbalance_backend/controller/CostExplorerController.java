@@ -2,9 +2,7 @@ package com.cloudkeeper.cloudbalance_backend.controller;
 
 import com.cloudkeeper.cloudbalance_backend.config.UserPrincipal;
 import com.cloudkeeper.cloudbalance_backend.dto.request.CostReportRequestDTO;
-import com.cloudkeeper.cloudbalance_backend.dto.response.AwsAccountResponse;
 import com.cloudkeeper.cloudbalance_backend.dto.response.CostReportResponseDTO;
-import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
 import com.cloudkeeper.cloudbalance_backend.entity.UserRole;
 import com.cloudkeeper.cloudbalance_backend.helper.roleAnnotations.AnyAuthenticatedUser;
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
@@ -50,14 +48,14 @@ public class CostExplorerController {
 
         if (hasRole(userPrincipal, UserRole.ADMIN) || hasRole(userPrincipal, UserRole.READ_ONLY)) {
 
-            List<String> allAccountIds = awsAccountService.getAllAwsAccounts().stream().map(AwsAccountResponse::getAccountId).toList();
+            List<String> allAccountIds = awsAccountService.getAllAccountIds();
 
             logger.debug("Admin/ReadOnly has access to {} accounts", allAccountIds.size());
             return allAccountIds;
         }
 
         if (hasRole(userPrincipal, UserRole.CUSTOMER)) {
-            List<String> assignedAccountIds = awsAccountService.getAccountsForUser(userPrincipal.getId()).stream().map(AwsAccount::getAccountId).toList();
+            List<String> assignedAccountIds = awsAccountService.getAccountIdsForUser(userPrincipal.getId());
 
             logger.debug("Customer has {} assigned accounts", assignedAccountIds.size());
             return assignedAccountIds;
@@ -0,0 +1,62 @@
+package com.cloudkeeper.cloudbalance_backend.controller;
+
+import com.cloudkeeper.cloudbalance_backend.dto.request.LogLevelUpdateRequest;
+import com.cloudkeeper.cloudbalance_backend.dto.response.ApiResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.LogLevelsResponse;
+import com.cloudkeeper.cloudbalance_backend.helper.roleAnnotations.AdminOnly;
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevel;
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevelRegistry;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/logging")
+@AdminOnly
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Logging Administration", description = "Runtime log level APIs")
+public class LoggingAdminController {
+
+    private final Logger logger = LoggerFactory.getLogger(LoggingAdminController.class);
+
+    @GetMapping("/levels")
+    @Operation(summary = "List log levels (ADMIN only)", description = "Returns the root level and every package or logger level set explicitly.")
+    public ResponseEntity<ApiResponse<LogLevelsResponse>> getLevels() {
+        return ResponseEntity.ok(ApiResponse.<LogLevelsResponse>builder().success(true).message("Log levels retrieved successfully").data(currentLevels()).build());
+    }
+
+    @PutMapping("/levels/{name}")
+    @Operation(summary = "Set a log level (ADMIN only)", description = "Sets the level of a logger or package, use ROOT for the root level. Takes effect immediately for all matching loggers.")
+    public ResponseEntity<ApiResponse<LogLevelsResponse>> setLevel(@PathVariable String name, @Valid @RequestBody LogLevelUpdateRequest request) {
+        LogLevel level = LogLevel.valueOf(request.getLevel().trim().toUpperCase());
+        if (name.equalsIgnoreCase("root")) {
+            LogLevelRegistry.setRootLevel(level);
+        } else {
+            LogLevelRegistry.setLevel(name, level);
+        }
+        logger.warn("Log level of {} changed to {}", name, level);
+        return ResponseEntity.ok(ApiResponse.<LogLevelsResponse>builder().success(true).message("Log level updated successfully").data(currentLevels()).build());
+    }
+
+    @DeleteMapping("/levels/{name}")
+    @Operation(summary = "Reset a log level (ADMIN only)", description = "Removes the override of a logger or package, it inherits from its parent again.")
+    public ResponseEntity<ApiResponse<LogLevelsResponse>> resetLevel(@PathVariable String name) {
+        LogLevelRegistry.setLevel(name, null);
+        logger.warn("Log level override of {} removed", name);
+        return ResponseEntity.ok(ApiResponse.<LogLevelsResponse>builder().success(true).message("Log level reset successfully").data(currentLevels()).build());
+    }
+
+    private LogLevelsResponse currentLevels() {
+        Map<String, String> levels = new LinkedHashMap<>();
+        LogLevelRegistry.getConfiguredLevels().forEach((name, level) -> levels.put(name, level.name()));
+        return LogLevelsResponse.builder().rootLevel(LogLevelRegistry.getRootLevel().name()).levels(levels).build();
+    }
+}
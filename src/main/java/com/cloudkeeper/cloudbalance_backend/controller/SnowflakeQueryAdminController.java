@@ -0,0 +1,50 @@
+package com.cloudkeeper.cloudbalance_backend.controller;
+
+import com.cloudkeeper.cloudbalance_backend.dto.response.ApiResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.QueryFingerprintStatsResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.SlowQueryResponse;
+import com.cloudkeeper.cloudbalance_backend.helper.roleAnnotations.AdminOnly;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.repository.snowflake.SnowflakeQueryStatistics;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/snowflake/queries")
+@AdminOnly
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Snowflake Query Statistics", description = "Warehouse query statistics and slow query log APIs")
+public class SnowflakeQueryAdminController {
+
+    private final SnowflakeQueryStatistics queryStatistics;
+    private final Logger logger = LoggerFactory.getLogger(SnowflakeQueryAdminController.class);
+
+    @GetMapping
+    @Operation(summary = "Query statistics per fingerprint (ADMIN only)", description = "Count, total/mean/max time, rows and result size per query type and fingerprint. Sort by total (default), max, mean or count.")
+    public ResponseEntity<ApiResponse<List<QueryFingerprintStatsResponse>>> getStatistics(@RequestParam(defaultValue = "total") String sort,
+                                                                                         @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ApiResponse.<List<QueryFingerprintStatsResponse>>builder().success(true).message("Query statistics retrieved successfully").data(queryStatistics.getStatistics(sort, limit)).build());
+    }
+
+    @GetMapping("/slow")
+    @Operation(summary = "Recent slow queries (ADMIN only)", description = "Most recent queries above the slow query threshold, newest first.")
+    public ResponseEntity<ApiResponse<List<SlowQueryResponse>>> getSlowQueries() {
+        return ResponseEntity.ok(ApiResponse.<List<SlowQueryResponse>>builder().success(true).message("Slow queries retrieved successfully").data(queryStatistics.getSlowQueries()).build());
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Reset query statistics (ADMIN only)", description = "Clears the statistics and the slow query log.")
+    public ResponseEntity<ApiResponse<Void>> reset() {
+        queryStatistics.reset();
+        logger.warn("Snowflake query statistics reset");
+        return ResponseEntity.ok(ApiResponse.<Void>builder().success(true).message("Query statistics reset successfully").build());
+    }
+}
@@ -0,0 +1,35 @@
+package com.cloudkeeper.cloudbalance_backend.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// every user x every account, either assigned or removed
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountAssignmentMatrixRequest {
+
+    public enum Operation {ASSIGN, REMOVE}
+
+    @NotEmpty(message = "User IDs list cannot be empty")
+    @Size(max = 10000, message = "At most 10000 users per request")
+    private List<Long> userIds;
+
+    @NotEmpty(message = "Account IDs list cannot be empty")
+    @Size(max = 10000, message = "At most 10000 accounts per request")
+    private List<Long> accountIds;
+
+    @Builder.Default
+    private Operation operation = Operation.ASSIGN;
+
+    // run in the background even when the job is small enough to finish within the request
+    @Builder.Default
+    private Boolean async = false;
+}
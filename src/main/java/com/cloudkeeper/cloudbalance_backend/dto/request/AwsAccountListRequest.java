@@ -0,0 +1,37 @@
+package com.cloudkeeper.cloudbalance_backend.dto.request;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AwsAccountListRequest {
+    @Min(1)
+    @Max(500)
+    @Builder.Default
+    private Integer size = 50;
+    @Pattern(regexp = "id|alias")
+    @Builder.Default
+    private String sortBy = "id";
+    @Pattern(regexp = "(?i)asc|desc")
+    @Builder.Default
+    private String sortDir = "asc";
+    // nextCursor of the previous page, absent for the first one
+    @Size(max = 1024)
+    private String cursor;
+    private Boolean active;
+    @Size(max = 255)
+    private String aliasPrefix;
+    private Long assignedUserId;
+    // the total is an extra COUNT query, only run when asked for
+    @Builder.Default
+    private Boolean includeTotal = false;
+}
@@ -0,0 +1,10 @@
+package com.cloudkeeper.cloudbalance_backend.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class LogLevelUpdateRequest {
+    @NotBlank(message = "Level is required")
+    private String level;
+}
@@ -0,0 +1,33 @@
+package com.cloudkeeper.cloudbalance_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentJobResponse {
+
+    public enum Status {QUEUED, RUNNING, COMPLETED, FAILED}
+
+    private String jobId;
+    private String operation;
+    private Status status;
+    // valid users x valid accounts
+    private Long totalPairs;
+    private Long processedPairs;
+    // rows inserted or deleted, the rest of the processed pairs were already in the requested state
+    private Long changedPairs;
+    // not found, not a customer (assign) or inactive account (assign), left out of the job
+    private List<Long> invalidUserIds;
+    private List<Long> invalidAccountIds;
+    private String error;
+    private Instant createdAt;
+    private Instant updatedAt;
+}
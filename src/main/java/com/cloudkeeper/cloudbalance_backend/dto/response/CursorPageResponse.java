@@ -0,0 +1,22 @@
+package com.cloudkeeper.cloudbalance_backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private Integer size;
+    // pass as cursor to get the next page, null on the last one
+    private String nextCursor;
+    private Boolean hasNext;
+    // only set when requested
+    private Long totalElements;
+}
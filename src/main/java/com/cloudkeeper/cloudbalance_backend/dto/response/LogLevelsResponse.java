@@ -0,0 +1,14 @@
+package com.cloudkeeper.cloudbalance_backend.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class LogLevelsResponse {
+    private String rootLevel;
+    // explicitly configured names and packages, everything else inherits
+    private Map<String, String> levels;
+}
@@ -0,0 +1,19 @@
+package com.cloudkeeper.cloudbalance_backend.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class QueryFingerprintStatsResponse {
+    private String queryType;
+    private String fingerprint;
+    private long count;
+    private long errors;
+    private double totalMs;
+    private double meanMs;
+    private double maxMs;
+    private long rows;
+    // estimated size of the returned rows, not bytes scanned by the warehouse
+    private long resultBytes;
+}
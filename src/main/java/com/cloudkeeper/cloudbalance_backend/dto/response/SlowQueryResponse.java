@@ -0,0 +1,20 @@
+package com.cloudkeeper.cloudbalance_backend.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class SlowQueryResponse {
+    private Instant executedAt;
+    private String queryType;
+    private String fingerprint;
+    private String sql;
+    private double durationMs;
+    private long rows;
+    private long resultBytes;
+    private boolean failed;
+    private String requestId;
+}
@@ -19,7 +19,8 @@ import java.util.Set;
 @Builder
 public class AwsAccount {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "aws_accounts_id_seq")
+    @SequenceGenerator(name = "aws_accounts_id_seq", sequenceName = "aws_accounts_id_seq", allocationSize = 50)
     private Long id;
     @Column(nullable = false, unique = true)
     private String accountId; // aws account id 12 digits
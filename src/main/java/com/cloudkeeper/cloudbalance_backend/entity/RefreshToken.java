@@ -17,7 +17,8 @@ import java.time.Instant;
 @AllArgsConstructor
 public class RefreshToken {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "refresh_tokens_id_seq")
+    @SequenceGenerator(name = "refresh_tokens_id_seq", sequenceName = "refresh_tokens_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -33,6 +34,10 @@ public class RefreshToken {
     @Column(nullable = false)
     private String deviceInfo;
 
+    // SHA-256 hex of deviceInfo, indexed together with user_id (see V2 migration)
+    @Column(nullable = false, length = 64, columnDefinition = "CHAR(64)")
+    private String deviceFingerprint;
+
     @Column(nullable = false)
     private String ipAddress;
 
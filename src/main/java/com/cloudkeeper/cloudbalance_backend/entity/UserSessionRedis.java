@@ -4,25 +4,19 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.springframework.data.annotation.Id;
-import org.springframework.data.redis.core.RedisHash;
-import org.springframework.data.redis.core.TimeToLive;
-import org.springframework.data.redis.core.index.Indexed;
 
 import java.io.Serializable;
 import java.time.Instant;
 
-@RedisHash(value = "user_sessions", timeToLive = 1800)
+// stored by UserSessionRedisStore as a plain hash, see the store for the key layout
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class UserSessionRedis implements Serializable {
 
-    @Id
     private String sessionId; // primary key (http session id or UUID)
 
-    @Indexed    // required for findByUserId query
     private Long userId;
     private String email;
     private String deviceInfo;
@@ -34,7 +28,6 @@ public class UserSessionRedis implements Serializable {
 
     private String deviceName;  // support for multi-device
 
-    @TimeToLive
     private Long ttl;  // auto-expires after ttl seconds
 
 }
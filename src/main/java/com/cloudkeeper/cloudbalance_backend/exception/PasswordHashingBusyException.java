@@ -0,0 +1,7 @@
+package com.cloudkeeper.cloudbalance_backend.exception;
+
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,50 @@
+package com.cloudkeeper.cloudbalance_backend.helper.batch;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Splits id lists into bounded batches, so IN lists and array parameters stay small however many ids a
+ * request carries.
+ */
+public final class IdBatches {
+
+    private IdBatches() {
+    }
+
+    // null ids are dropped, the order of the remaining ids is kept
+    public static void forEachBatch(Collection<Long> ids, int batchSize, Consumer<Long[]> action) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive : " + batchSize);
+        }
+        Long[] all = ids.stream().filter(Objects::nonNull).toArray(Long[]::new);
+        for (int from = 0; from < all.length; from += batchSize) {
+            action.accept(Arrays.copyOfRange(all, from, Math.min(all.length, from + batchSize)));
+        }
+    }
+
+    /**
+     * Covers every (user, account) pair exactly once with chunks of at most {@code maxPairs} pairs. A chunk
+     * takes as many accounts as fit (all of them when possible) and as many users as the remaining
+     * budget allows, at least one of each.
+     */
+    public static void forEachMatrixChunk(Long[] userIds, Long[] accountIds, int maxPairs, BiConsumer<Long[], Long[]> action) {
+        if (maxPairs <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive : " + maxPairs);
+        }
+        if (userIds.length == 0 || accountIds.length == 0) {
+            return;
+        }
+        int accountsPerChunk = Math.min(accountIds.length, maxPairs);
+        int usersPerChunk = Math.max(1, maxPairs / accountsPerChunk);
+        for (int u = 0; u < userIds.length; u += usersPerChunk) {
+            Long[] users = Arrays.copyOfRange(userIds, u, Math.min(userIds.length, u + usersPerChunk));
+            for (int a = 0; a < accountIds.length; a += accountsPerChunk) {
+                action.accept(users, Arrays.copyOfRange(accountIds, a, Math.min(accountIds.length, a + accountsPerChunk)));
+            }
+        }
+    }
+}
@@ -4,8 +4,8 @@ import com.cloudkeeper.cloudbalance_backend.dto.response.CostReportResponse;
 import com.cloudkeeper.cloudbalance_backend.dto.response.GroupWiseData;
 import com.cloudkeeper.cloudbalance_backend.dto.response.MonthWiseData;
 import com.cloudkeeper.cloudbalance_backend.entity.CostReport;
+import com.cloudkeeper.cloudbalance_backend.repository.snowflake.SnowflakeRepository;
 import com.snowflake.snowpark_java.Row;
-import com.snowflake.snowpark_java.Session;
 import enums.Granularity;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
@@ -20,10 +20,10 @@ public class SnowflakeUtils {
     private static final String TOTAL_COST = "total_cost";
     private static final String BILL_MONTH = "bill_month";
     private static final String BILL_YEAR = "bill_year";
-    private final Session snowFlakeSession;
+    private final SnowflakeRepository snowflakeRepository;
 
     public List<String> getFiltersByGroup(String groupBy) {
-        Row[] rows = snowFlakeSession.sql(String.format("SELECT %s FROM COSTREPORT GROUP BY %s", groupBy, groupBy)).collect();
+        List<Row> rows = snowflakeRepository.executeQuery("filters", String.format("SELECT %s FROM COSTREPORT GROUP BY %s", groupBy, groupBy));
         List<String> values = new ArrayList<>();
         for (Row row : rows) {
             values.add(row.getAs(groupBy, String.class));
@@ -32,7 +32,7 @@ public class SnowflakeUtils {
     }
 
     public List<String> getFiltersByGroup(String groupBy, List<String> accountIds) {
-        Row[] rows = snowFlakeSession.sql(String.format("SELECT %s FROM COSTREPORT WHERE account_id IN (%s) GROUP BY %s", groupBy, String.join(",", accountIds), groupBy)).collect();
+        List<Row> rows = snowflakeRepository.executeQuery("filters.accounts", String.format("SELECT %s FROM COSTREPORT WHERE account_id IN (%s) GROUP BY %s", groupBy, String.join(",", accountIds), groupBy));
         List<String> values = new ArrayList<>();
         for (Row row : rows) {
             values.add(row.getAs(groupBy, String.class));
@@ -41,12 +41,12 @@ public class SnowflakeUtils {
     }
 
     public CostReportResponse getFilterDataByGroup(String groupBy, List<String> groupByValues, String startDate, String endDate) {
-        Row[] rows = snowFlakeSession.sql(String.format("""
+        List<Row> rows = snowflakeRepository.executeQuery("group_data.filtered", String.format("""
                 SELECT %s,YEAR(bill_date)  AS bill_year,MONTH(bill_date) AS bill_month,SUM(cost)\s
                 AS total_cost FROM costreport   WHERE %s in ('%s') AND bill_date >= COALESCE(%s, '1900-01-01'::DATE)
                   AND bill_date <= COALESCE(%s, CURRENT_DATE()) GROUP BY %s,
                 YEAR(bill_date),MONTH(bill_date) ORDER BY %s,bill_year,bill_month
-               \s""", groupBy, groupBy, String.join("','", groupByValues), startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy)).collect();
+               \s""", groupBy, groupBy, String.join("','", groupByValues), startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy));
         List<CostReport> reports = new ArrayList<>();
         for (Row row : rows) {
             CostReport costReport = new CostReport(row.getAs(groupBy, String.class), row.getAs(TOTAL_COST, Long.class), row.getAs(BILL_MONTH, Long.class), row.getAs(BILL_YEAR, Long.class));
@@ -57,7 +57,7 @@ public class SnowflakeUtils {
     }
 
     public CostReportResponse getFilterDataByGroup(String groupBy, List<String> accountIds, List<String> groupByValues, String startDate, String endDate) {
-        Row[] rows = snowFlakeSession.sql(String.format("""
+        List<Row> rows = snowflakeRepository.executeQuery("group_data.filtered_accounts", String.format("""
                  SELECT %s, YEAR(bill_date) AS Bill_Year, MONTH(bill_date) AS Bill_Month, SUM(cost) AS Total_Cost
                  FROM COSTREPORT
                  WHERE %s IN ('%s')\s
@@ -66,7 +66,7 @@ public class SnowflakeUtils {
                      AND bill_date <= COALESCE(%s, CURRENT_DATE())
                  GROUP BY %s, YEAR(bill_date), MONTH(bill_date)
                  ORDER BY %s, bill_year, bill_month
-                \s""", groupBy, groupBy, String.join(",", groupByValues), String.join(",", accountIds), startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy)).collect();
+                \s""", groupBy, groupBy, String.join(",", groupByValues), String.join(",", accountIds), startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy));
         List<CostReport> reports = new ArrayList<>();
         for (Row row : rows) {
             reports.add(CostReport.builder().groupKey(row.getAs(groupBy, String.class)).totalCost(row.getAs(TOTAL_COST, Long.class)).month(row.getAs(BILL_MONTH, Long.class)).year(row.getAs(BILL_YEAR, Long.class)).build());
@@ -75,12 +75,12 @@ public class SnowflakeUtils {
     }
 
     public CostReportResponse getDataByGroup(String groupBy, List<String> accountIds, String startDate, String endDate) {
-        Row[] rows = snowFlakeSession.sql(String.format("""
+        List<Row> rows = snowflakeRepository.executeQuery("group_data.accounts", String.format("""
                  SELECT %s,YEAR(bill_date)  AS bill_year,MONTH(bill_date) AS bill_month,SUM(cost)
                  AS total_cost FROM costreport where account_id in (%s) AND bill_date >= COALESCE(%s, '1900-01-01'::DATE)
                    AND bill_date <= COALESCE(%s, CURRENT_DATE()) GROUP BY %s,
                  YEAR(bill_date),MONTH(bill_date) ORDER BY %s,bill_year,bill_month
-                """, groupBy, String.join(",", accountIds), startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy)).collect();
+                """, groupBy, String.join(",", accountIds), startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy));
         List<CostReport> reports = new ArrayList<>();
         for (Row row : rows) {
             CostReport costReport = new CostReport(row.getAs(groupBy, String.class), row.getAs(TOTAL_COST, Long.class), row.getAs(BILL_MONTH, Long.class), row.getAs(BILL_YEAR, Long.class));
@@ -91,7 +91,7 @@ public class SnowflakeUtils {
     }
 
     public CostReportResponse getDataByGroup(String groupBy, String startDate, String endDate) {
-        Row[] rows = snowFlakeSession.sql(String.format("""
+        List<Row> rows = snowflakeRepository.executeQuery("group_data", String.format("""
                 SELECT
                     %s,
                     YEAR(bill_date)  AS bill_year,
@@ -102,7 +102,7 @@ public class SnowflakeUtils {
                   AND bill_date <= COALESCE(%s, CURRENT_DATE())
                 GROUP BY %s, YEAR(bill_date), MONTH(bill_date)
                 ORDER BY %s, bill_year, bill_month;
-                """, groupBy, startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy)).collect();
+                """, groupBy, startDate == null ? null : "'" + startDate + "'", endDate == null ? null : "'" + endDate + "'", groupBy, groupBy));
         List<CostReport> reports = new ArrayList<>();
         for (Row row : rows) {
             CostReport costReport = new CostReport(row.getAs(groupBy, String.class), row.getAs(TOTAL_COST, Long.class), row.getAs(BILL_MONTH, Long.class), row.getAs(BILL_YEAR, Long.class));
@@ -0,0 +1,76 @@
+package com.cloudkeeper.cloudbalance_backend.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hierarchical log levels keyed by logger name or package prefix, e.g. {@code com.cloudkeeper.cloudbalance_backend.service}.
+ * A logger takes the level of its most specific configured prefix, falling back to the root level.
+ * Levels are resolved when they change and pushed into every registered logger, so the check on the
+ * logging call itself stays a single volatile read.
+ */
+public final class LogLevelRegistry {
+
+    private static final Map<String, LogLevel> configuredLevels = new ConcurrentHashMap<>();
+    // guarded by the class lock, together with rootLevel writes
+    private static final List<MyLogger> loggers = new ArrayList<>();
+    private static volatile LogLevel rootLevel = LogLevel.INFO;
+
+    private LogLevelRegistry() {
+    }
+
+    static synchronized void register(MyLogger logger) {
+        loggers.add(logger);
+        logger.setLevel(resolve(logger.getName()));
+    }
+
+    public static LogLevel getRootLevel() {
+        return rootLevel;
+    }
+
+    public static synchronized void setRootLevel(LogLevel level) {
+        rootLevel = level;
+        refresh();
+    }
+
+    // a null level removes the override, the name falls back to its parent again
+    public static synchronized void setLevel(String name, LogLevel level) {
+        if (level == null) {
+            configuredLevels.remove(name);
+        } else {
+            configuredLevels.put(name, level);
+        }
+        refresh();
+    }
+
+    public static Map<String, LogLevel> getConfiguredLevels() {
+        return new TreeMap<>(configuredLevels);
+    }
+
+    public static LogLevel getEffectiveLevel(String name) {
+        return resolve(name);
+    }
+
+    private static void refresh() {
+        for (MyLogger logger : loggers) {
+            logger.setLevel(resolve(logger.getName()));
+        }
+    }
+
+    // walks a.b.C -> a.b -> a -> root
+    private static LogLevel resolve(String name) {
+        String candidate = name;
+        while (candidate != null) {
+            LogLevel level = configuredLevels.get(candidate);
+            if (level != null) {
+                return level;
+            }
+            int dot = candidate.lastIndexOf('.');
+            candidate = dot > 0 ? candidate.substring(0, dot) : null;
+        }
+        return rootLevel;
+    }
+}
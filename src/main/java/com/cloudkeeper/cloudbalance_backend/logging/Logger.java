@@ -1,5 +1,8 @@
 package com.cloudkeeper.cloudbalance_backend.logging;
 
+import java.util.Map;
+import java.util.function.Supplier;
+
 public interface Logger {
     void debug(String message, Object... args);
     void info(String message, Object... args);
@@ -7,4 +10,19 @@ public interface Logger {
     void error(String message, Object... args);
     void error(String message, Throwable throwable ,Object... args);
     void trace(String message, Object... args);
+
+    // suppliers are only invoked when the level is enabled, for arguments that are costly to build
+    void debug(String message, Supplier<?>... argSuppliers);
+    void info(String message, Supplier<?>... argSuppliers);
+    void warn(String message, Supplier<?>... argSuppliers);
+    void trace(String message, Supplier<?>... argSuppliers);
+
+    // one structured event, fields become top-level JSON attributes next to the request context
+    void event(LogLevel level, String message, Map<String, ?> fields);
+
+    boolean isEnabled(LogLevel level);
+
+    default boolean isDebugEnabled() {
+        return isEnabled(LogLevel.DEBUG);
+    }
 }
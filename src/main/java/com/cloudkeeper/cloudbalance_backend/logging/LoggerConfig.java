@@ -1,21 +1,80 @@
 package com.cloudkeeper.cloudbalance_backend.logging;
 
-import lombok.Getter;
+import com.cloudkeeper.cloudbalance_backend.logging.appender.AsyncLogAppender;
+import com.cloudkeeper.cloudbalance_backend.logging.appender.OverflowPolicy;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+
 @Component
-public class LoggerConfig {
-    @Getter
-    private static LogLevel logLevel = LogLevel.INFO;
+public class LoggerConfig implements EnvironmentAware {
 
     @Value("${logging.level.root:INFO}")
     public void setLogLevel(String level){
         try{
-            LoggerConfig.logLevel = LogLevel.valueOf(level.toUpperCase());
+            LogLevelRegistry.setRootLevel(LogLevel.valueOf(level.toUpperCase()));
         }catch (IllegalArgumentException e){
-            LoggerConfig.logLevel = LogLevel.INFO;
+            LogLevelRegistry.setRootLevel(LogLevel.INFO);
         }
     }
 
+    // logging.level.<package or class>=DEBUG entries become per-logger overrides
+    @Override
+    public void setEnvironment(Environment environment){
+        Map<String, String> levels = Binder.get(environment)
+                .bind("logging.level", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        levels.forEach((name, level) -> {
+            if (name.equalsIgnoreCase("root")) {
+                return;
+            }
+            try{
+                LogLevelRegistry.setLevel(name, LogLevel.valueOf(level.trim().toUpperCase()));
+            }catch (IllegalArgumentException e){
+                // levels only the platform logger knows (FATAL, ...) are left to it
+            }
+        });
+    }
+
+    @Value("${app.logging.overflow-policy:BLOCK}")
+    public void setOverflowPolicy(String policy){
+        try{
+            AsyncLogAppender.getInstance().setOverflowPolicy(OverflowPolicy.valueOf(policy.toUpperCase()));
+        }catch (IllegalArgumentException e){
+            AsyncLogAppender.getInstance().setOverflowPolicy(OverflowPolicy.BLOCK);
+        }
+    }
+
+    // with SAMPLE, one of every sample-rate overflowing events is kept
+    @Value("${app.logging.sample-rate:100}")
+    public void setSampleRate(int sampleRate){
+        AsyncLogAppender.getInstance().setSampleRate(sampleRate);
+    }
+
+    @Value("${app.logging.max-file-size-mb:100}")
+    public void setMaxFileSizeMb(long maxFileSizeMb){
+        AsyncLogAppender.getInstance().setMaxFileSizeBytes(maxFileSizeMb * 1024 * 1024);
+    }
+
+    @Value("${app.logging.max-history:14}")
+    public void setMaxHistory(int maxHistory){
+        AsyncLogAppender.getInstance().setMaxHistory(maxHistory);
+    }
+
+    // json writes one JSON object per line, text the classic bracketed line
+    @Value("${app.logging.format:json}")
+    public void setFormat(String format){
+        AsyncLogAppender.getInstance().setJsonFormat(!format.trim().equalsIgnoreCase("text"));
+    }
+
+    @Value("${app.logging.console:true}")
+    public void setConsoleEnabled(boolean consoleEnabled){
+        AsyncLogAppender.getInstance().setConsoleEnabled(consoleEnabled);
+    }
+
 }
@@ -10,13 +10,7 @@ public class LoggerFactory {
     }
 
     public static Logger getLogger(String name) {
-        return loggers.computeIfAbsent(name, k -> {
-            try {
-                return new MyLogger(Class.forName(name));
-            } catch (ClassNotFoundException e) {
-                throw new RuntimeException("Can not crate logger for : " + name, e);
-            }
-        });
+        return loggers.computeIfAbsent(name, MyLogger::new);
     }
 
 }
@@ -0,0 +1,55 @@
+package com.cloudkeeper.cloudbalance_backend.logging;
+
+/**
+ * Substitutes {@code {}} placeholders straight into a caller supplied buffer. Numbers, booleans,
+ * characters and CharSequences are appended without going through toString, so formatting the
+ * usual ids and names allocates nothing.
+ */
+public final class MessageFormatter {
+
+    private MessageFormatter() {
+    }
+
+    public static void formatTo(StringBuilder target, String message, Object... args) {
+        if (message == null) {
+            target.append("null");
+            return;
+        }
+        if (args == null || args.length == 0) {
+            target.append(message);
+            return;
+        }
+
+        int argIndex = 0;
+        int start = 0;
+        int length = message.length();
+        for (int i = 0; i < length - 1; i++) {
+            if (message.charAt(i) == '{' && message.charAt(i + 1) == '}') {
+                target.append(message, start, i);
+                if (argIndex < args.length) {
+                    appendArg(target, args[argIndex++]);
+                } else {
+                    // no more arguments, keep the placeholder
+                    target.append("{}");
+                }
+                start = i + 2;
+                i++;
+            }
+        }
+        target.append(message, start, length);
+    }
+
+    private static void appendArg(StringBuilder target, Object arg) {
+        switch (arg) {
+            case null -> target.append("null");
+            case CharSequence chars -> target.append(chars);
+            case Long value -> target.append(value.longValue());
+            case Integer value -> target.append(value.intValue());
+            case Short value -> target.append(value.shortValue());
+            case Byte value -> target.append(value.byteValue());
+            case Boolean value -> target.append(value.booleanValue());
+            case Character value -> target.append(value.charValue());
+            default -> target.append(arg);
+        }
+    }
+}
@@ -1,147 +1,183 @@
 package com.cloudkeeper.cloudbalance_backend.logging;
 
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import com.cloudkeeper.cloudbalance_backend.logging.appender.AsyncLogAppender;
+import com.cloudkeeper.cloudbalance_backend.logging.context.LogContext;
+
+import java.util.Map;
+import java.util.function.Supplier;
 
 public class MyLogger implements Logger {
 
-    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
-    private static final String LOG_FILE_PATH = "logs/cloudbalance.log";
-    // ANSI COLOR CODES
-    private static final String RESET = "\u001B[0m";
-    private static final String RED = "\u001B[31m";
-    private static final String YELLOW = "\u001B[33m";
-    private static final String GREEN = "\u001B[32m";
-    private static final String BLUE = "\u001B[34m";
-    private static final String CYAN = "\u001B[36m";
+    // per-thread format buffer, the appender copies the text into its ring slot
+    private static final ThreadLocal<FormatBuffer> FORMAT_BUFFER = ThreadLocal.withInitial(FormatBuffer::new);
+
+    // full name drives the level lookup, the simple name is what ends up in the log line
+    private final String name;
     private final String className;
-    private final LogLevel logLevel;
+    private volatile LogLevel level = LogLevel.INFO;
 
     public MyLogger(Class<?> classs) {
-        this.className = classs.getSimpleName();
-        this.logLevel = LoggerConfig.getLogLevel();
+        this(classs.getName(), classs.getSimpleName());
+    }
+
+    // named loggers that are not tied to a class, e.g. "audit.login"
+    public MyLogger(String name) {
+        this(name, name);
+    }
+
+    private MyLogger(String name, String className) {
+        this.name = name;
+        this.className = className;
+        LogLevelRegistry.register(this);
     }
 
+    String getName() {
+        return name;
+    }
+
+    void setLevel(LogLevel level) {
+        this.level = level;
+    }
+
+    @Override
+    public boolean isEnabled(LogLevel target) {
+        return level.isLoggable(target);
+    }
 
     @Override
     public void debug(String message, Object... args) {
-        if (logLevel.isLoggable(LogLevel.DEBUG)) {
-            log(LogLevel.DEBUG, formatMessage(message, args), null, CYAN);
+        if (isEnabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, message, args, null);
         }
     }
 
     @Override
     public void info(String message, Object... args) {
-        if (logLevel.isLoggable(LogLevel.INFO)) {
-            log(LogLevel.INFO, formatMessage(message, args), null, GREEN);
+        if (isEnabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, message, args, null);
         }
     }
 
     @Override
     public void warn(String message, Object... args) {
-        if (logLevel.isLoggable(LogLevel.WARN)) {
-            log(LogLevel.WARN, formatMessage(message, args), null, YELLOW);
+        if (isEnabled(LogLevel.WARN)) {
+            log(LogLevel.WARN, message, args, null);
         }
     }
 
     @Override
     public void error(String message, Object... args) {
-        if (logLevel.isLoggable(LogLevel.ERROR)) {
-            log(LogLevel.ERROR, formatMessage(message, args), null, RED);
+        if (isEnabled(LogLevel.ERROR)) {
+            log(LogLevel.ERROR, message, args, null);
         }
     }
 
     @Override
     public void error(String message, Throwable throwable, Object... args) {
-        if (logLevel.isLoggable(LogLevel.ERROR)) {
-            log(LogLevel.ERROR, formatMessage(message, args), throwable, RED);
+        if (isEnabled(LogLevel.ERROR)) {
+            log(LogLevel.ERROR, message, args, throwable);
         }
     }
 
     @Override
     public void trace(String message, Object... args) {
-        if (logLevel.isLoggable(LogLevel.TRACE)) {
-            log(LogLevel.TRACE, formatMessage(message, args), null, BLUE);
+        if (isEnabled(LogLevel.TRACE)) {
+            log(LogLevel.TRACE, message, args, null);
         }
     }
 
+    @Override
+    public void debug(String message, Supplier<?>... argSuppliers) {
+        if (isEnabled(LogLevel.DEBUG)) {
+            log(LogLevel.DEBUG, message, resolve(argSuppliers), null);
+        }
+    }
 
-    private void log(LogLevel level, String message, Throwable throwable, String color) {
-        String timestamp = LocalDateTime.now().format(DATE_TIME_FORMATTER);
-        String threadName = Thread.currentThread().getName();
-
-        String logMessage = String.format("[%s] [%s] [%s] [%s] - %s",
-                timestamp, threadName, level.name(), className, message
-        );
-
-        // console output with colors
-        System.out.println(color + logMessage + RESET);
-
-        // file output
-        writeToFile(logMessage);
-
-        // print stack trace if throwable present
-        if (throwable != null) {
-            throwable.printStackTrace();
-            writeThrowableToFile(throwable);
+    @Override
+    public void info(String message, Supplier<?>... argSuppliers) {
+        if (isEnabled(LogLevel.INFO)) {
+            log(LogLevel.INFO, message, resolve(argSuppliers), null);
         }
+    }
 
+    @Override
+    public void warn(String message, Supplier<?>... argSuppliers) {
+        if (isEnabled(LogLevel.WARN)) {
+            log(LogLevel.WARN, message, resolve(argSuppliers), null);
+        }
     }
 
-    //    Handles {} placeholders and replaces them with arguments
-    private String formatMessage(String message, Object... args) {
-        if (args == null || args.length == 0) {
-            return message;
+    @Override
+    public void trace(String message, Supplier<?>... argSuppliers) {
+        if (isEnabled(LogLevel.TRACE)) {
+            log(LogLevel.TRACE, message, resolve(argSuppliers), null);
         }
+    }
 
-        // Use StringBuilder for efficient string manipulation
-        StringBuilder result = new StringBuilder();
-        int argIndex = 0;
-        int length = message.length();
+    @Override
+    public void event(LogLevel level, String message, Map<String, ?> fields) {
+        if (isEnabled(level)) {
+            LogContext context = LogContext.current();
+            AsyncLogAppender.getInstance().append(level, className, message, null,
+                    context != null ? context.getRequestId() : null,
+                    context != null ? context.getUserId() : null,
+                    context != null ? context.getSessionId() : null,
+                    fields);
+        }
+    }
 
-        for (int i = 0; i < length; i++) {
-            char current = message.charAt(i);
+    private static Object[] resolve(Supplier<?>[] argSuppliers) {
+        if (argSuppliers == null || argSuppliers.length == 0) {
+            return null;
+        }
+        Object[] args = new Object[argSuppliers.length];
+        for (int i = 0; i < argSuppliers.length; i++) {
+            args[i] = argSuppliers[i] != null ? argSuppliers[i].get() : null;
+        }
+        return args;
+    }
 
-            // Check for placeholder {}
-            if (current == '{' && i + 1 < length && message.charAt(i + 1) == '}') {
-                // Replace with argument if available
-                if (argIndex < args.length) {
-                    result.append(args[argIndex]);
-                    argIndex++;
-                } else {
-                    // No more arguments, keep placeholder
-                    result.append("{}");
-                }
-                i++; // Skip the next '}'
+    // hands the event to the async appender, the caller never waits on console or file I/O
+    private void log(LogLevel level, String message, Object[] args, Throwable throwable) {
+        FormatBuffer buffer = FORMAT_BUFFER.get();
+        StringBuilder text = buffer.acquire();
+        try {
+            MessageFormatter.formatTo(text, message, args);
+            LogContext context = LogContext.current();
+            if (context == null) {
+                AsyncLogAppender.getInstance().append(level, className, text, throwable);
             } else {
-                result.append(current);
+                AsyncLogAppender.getInstance().append(level, className, text, throwable,
+                        context.getRequestId(), context.getUserId(), context.getSessionId(), null);
             }
+        } finally {
+            buffer.release(text);
         }
-
-        return result.toString();
     }
 
-    private void writeToFile(String message) {
-        try (FileWriter fw = new FileWriter(LOG_FILE_PATH, true);
-             PrintWriter pw = new PrintWriter(fw)
-        ) {
-            pw.println(message);
-        } catch (IOException e) {
-            System.err.println("Failed to write in log file : " + e.getMessage());
+    // an argument whose toString logs again gets a fresh builder instead of clobbering the outer one
+    private static final class FormatBuffer {
+        private static final int MAX_RETAINED_CHARS = 8192;
+        private StringBuilder builder = new StringBuilder(256);
+        private boolean inUse;
+
+        StringBuilder acquire() {
+            if (inUse) {
+                return new StringBuilder(256);
+            }
+            inUse = true;
+            builder.setLength(0);
+            return builder;
         }
-    }
 
-    private void writeThrowableToFile(Throwable throwable) {
-        try (
-                FileWriter fw = new FileWriter(LOG_FILE_PATH, true);
-                PrintWriter pw = new PrintWriter(fw)
-        ) {
-            throwable.printStackTrace(pw);
-        } catch (IOException e) {
-            System.err.println("Failed to write throwable to log file : " + e.getMessage());
+        void release(StringBuilder text) {
+            if (text != builder) {
+                return;
+            }
+            inUse = false;
+            if (builder.capacity() > MAX_RETAINED_CHARS) {
+                builder = new StringBuilder(256);
+            }
         }
     }
 }
@@ -0,0 +1,383 @@
+package com.cloudkeeper.cloudbalance_backend.logging.appender;
+
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevel;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Asynchronous backend behind every {@link com.cloudkeeper.cloudbalance_backend.logging.MyLogger}.
+ * <p>
+ * Callers claim a slot of a preallocated ring with one CAS, fill it and publish its sequence; they never
+ * touch the file. A single daemon writer drains whatever is published, renders it with a
+ * {@link LogLineEncoder} into reused direct buffers and writes them to the console and a
+ * {@link RollingLogFile} in batches, one write per full buffer or per drained batch. When the ring is full, DEBUG/INFO/TRACE events follow the configured
+ * {@link OverflowPolicy}, WARN and ERROR always wait.
+ * <p>
+ * Ring size and file path are read once from the {@code cloudbalance.log.buffer-size} and
+ * {@code cloudbalance.log.file} system properties, since loggers exist before the Spring context.
+ * Everything else is set by LoggerConfig and may change at runtime.
+ */
+public final class AsyncLogAppender {
+
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = 10_000_000L;
+    private static final long FULL_PARK_NANOS = 50_000L;
+    private static final int FULL_SPINS = 100;
+
+    // ANSI COLOR CODES
+    private static final byte[] RESET = ansi("\u001B[0m");
+    private static final byte[] RED = ansi("\u001B[31m");
+    private static final byte[] YELLOW = ansi("\u001B[33m");
+    private static final byte[] GREEN = ansi("\u001B[32m");
+    private static final byte[] BLUE = ansi("\u001B[34m");
+    private static final byte[] CYAN = ansi("\u001B[36m");
+
+    private static final AsyncLogAppender INSTANCE = new AsyncLogAppender(
+            Integer.getInteger("cloudbalance.log.buffer-size", 8192),
+            Path.of(System.getProperty("cloudbalance.log.file", "logs/cloudbalance.log")));
+
+    private final LogEvent[] ring;
+    private final int mask;
+    // sequence published in each slot, -1 until the first publish
+    private final AtomicLongArray published;
+    // next sequence handed to a producer
+    private final AtomicLong claimed = new AtomicLong();
+    // next sequence the writer consumes, every slot below it may be reused
+    private volatile long consumed;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong overflowed = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+    // set when the writer thread has ended, producers must not wait for it any more
+    private volatile boolean writerDead;
+
+    private volatile OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private volatile int sampleRate = 100;
+    private volatile long maxFileSizeBytes = 100L * 1024 * 1024;
+    private volatile int maxHistory = 14;
+    private volatile boolean consoleEnabled = true;
+    private volatile boolean jsonFormat = true;
+
+    // writer thread state
+    private final Path filePath;
+    private RollingLogFile file;
+    private final FileChannel console = new FileOutputStream(FileDescriptor.out).getChannel();
+    private final ByteBuffer fileBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+    private final ByteBuffer consoleBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+    private final LogLineEncoder encoder = new LogLineEncoder();
+    private final StringBuilder notice = new StringBuilder(64);
+
+    private AsyncLogAppender(int requestedCapacity, Path filePath) {
+        int capacity = Integer.highestOneBit(Math.max(64, requestedCapacity));
+        if (capacity < requestedCapacity) {
+            capacity <<= 1;
+        }
+        this.ring = new LogEvent[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new LogEvent();
+            published.set(i, -1);
+        }
+        this.filePath = filePath;
+
+        writer = new Thread(this::drainLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "log-writer-shutdown"));
+    }
+
+    public static AsyncLogAppender getInstance() {
+        return INSTANCE;
+    }
+
+    public void append(LogLevel level, String loggerName, CharSequence message, Throwable throwable) {
+        append(level, loggerName, message, throwable, null, null, null, null);
+    }
+
+    // the message is copied into the slot, callers may reuse their buffer as soon as this returns;
+    // fields are kept by reference and must not be modified afterwards
+    public void append(LogLevel level, String loggerName, CharSequence message, Throwable throwable,
+                       String requestId, Long userId, String sessionId, Map<String, ?> fields) {
+        if (closed || writerDead) {
+            dropped.incrementAndGet();
+            return;
+        }
+        long sequence = claim(level);
+        if (sequence < 0) {
+            return;
+        }
+        LogEvent event = ring[(int) sequence & mask];
+        event.timestampMillis = System.currentTimeMillis();
+        event.level = level;
+        event.loggerName = loggerName;
+        event.threadName = Thread.currentThread().getName();
+        event.message.append(message);
+        event.throwable = throwable;
+        event.requestId = requestId;
+        event.userId = userId;
+        event.sessionId = sessionId;
+        event.fields = fields;
+        published.setRelease((int) sequence & mask, sequence);
+
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // returns the claimed sequence, or -1 when the overflow policy discarded the event
+    private long claim(LogLevel level) {
+        boolean mustWait = level == LogLevel.WARN || level == LogLevel.ERROR;
+        boolean decided = false;
+        int spins = 0;
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed < ring.length) {
+                if (claimed.compareAndSet(sequence, sequence + 1)) {
+                    return sequence;
+                }
+                continue;
+            }
+
+            if (!mustWait && !decided) {
+                decided = true;
+                OverflowPolicy policy = overflowPolicy;
+                if (policy == OverflowPolicy.DROP
+                        || (policy == OverflowPolicy.SAMPLE && overflowed.getAndIncrement() % Math.max(1, sampleRate) != 0)) {
+                    dropped.incrementAndGet();
+                    return -1;
+                }
+            }
+            if (closed || writerDead) {
+                dropped.incrementAndGet();
+                return -1;
+            }
+            LockSupport.unpark(writer);
+            if (++spins < FULL_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+        }
+    }
+
+    private void drainLoop() {
+        try {
+            drainUntilClosed();
+        } catch (Throwable t) {
+            System.err.println("Log writer stopped : " + t);
+            t.printStackTrace();
+        } finally {
+            writerDead = true;
+        }
+    }
+
+    private void drainUntilClosed() {
+        try {
+            file = new RollingLogFile(filePath);
+        } catch (IOException e) {
+            System.err.println("Failed to open log file " + filePath + " : " + e.getMessage());
+        }
+
+        while (true) {
+            int written = drainBatch();
+            if (written > 0) {
+                flush();
+                continue;
+            }
+            if (closed) {
+                break;
+            }
+            writerParked = true;
+            // re-check after announcing, a wake-up lost to a racing producer costs at most one bounded park
+            if (!isPublished(consumed)) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+
+        flush();
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close log file : " + e.getMessage());
+            }
+        }
+    }
+
+    private int drainBatch() {
+        int count = 0;
+        long next = consumed;
+        while (isPublished(next)) {
+            LogEvent event = ring[(int) next & mask];
+            try {
+                write(event);
+            } catch (RuntimeException e) {
+                // one event that cannot be rendered (a failing toString, a bad field) must not stop the writer
+                System.err.println("Failed to write log event from " + event.loggerName + " : " + e);
+            } finally {
+                event.clear();
+            }
+            consumed = ++next;
+            count++;
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            notice.setLength(0);
+            notice.append("Log buffer full, dropped ").append(lost).append(" events");
+            writeLine(LogLevel.WARN, System.currentTimeMillis(), "log-writer", "AsyncLogAppender", notice, null,
+                    null, null, null, null);
+            count++;
+        }
+        return count;
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.getAcquire((int) sequence & mask) == sequence;
+    }
+
+    private void write(LogEvent event) {
+        writeLine(event.level, event.timestampMillis, event.threadName, event.loggerName, event.message, event.throwable,
+                event.requestId, event.userId, event.sessionId, event.fields);
+    }
+
+    private void writeLine(LogLevel level, long timestampMillis, String threadName, String loggerName,
+                           CharSequence message, Throwable throwable,
+                           String requestId, Long userId, String sessionId, Map<String, ?> fields) {
+        boolean json = jsonFormat;
+        encoder.format(json, level, timestampMillis, threadName, loggerName, message, throwable, requestId, userId, sessionId, fields);
+        boolean toConsole = consoleEnabled;
+        // JSON lines stay machine readable on the console too, only text gets colors
+        boolean colored = toConsole && !json;
+        if (colored) {
+            putConsole(colorOf(level));
+        }
+
+        // flush first when the line may not fit, so file writes (and therefore roll-overs) end on line
+        // boundaries; only lines longer than the whole buffer are split
+        if (encoder.maxEncodedLength(0) > fileBuffer.remaining()) {
+            drain(fileBuffer, true);
+        }
+        int next = 0;
+        while (true) {
+            int start = fileBuffer.position();
+            next = encoder.encode(fileBuffer, next);
+            if (toConsole) {
+                copyToConsole(start, fileBuffer.position() - start);
+            }
+            if (next == encoder.length()) {
+                break;
+            }
+            drain(fileBuffer, true);
+        }
+
+        if (colored) {
+            putConsole(RESET);
+        }
+    }
+
+    // the console gets the bytes already encoded for the file
+    private void copyToConsole(int offset, int length) {
+        if (length > consoleBuffer.remaining()) {
+            drain(consoleBuffer, false);
+        }
+        consoleBuffer.put(consoleBuffer.position(), fileBuffer, offset, length);
+        consoleBuffer.position(consoleBuffer.position() + length);
+    }
+
+    private void putConsole(byte[] bytes) {
+        if (bytes.length > consoleBuffer.remaining()) {
+            drain(consoleBuffer, false);
+        }
+        consoleBuffer.put(bytes);
+    }
+
+    private void flush() {
+        drain(fileBuffer, true);
+        drain(consoleBuffer, false);
+    }
+
+    private void drain(ByteBuffer buffer, boolean toFile) {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        try {
+            if (toFile) {
+                if (file != null) {
+                    file.write(buffer, maxFileSizeBytes, maxHistory);
+                }
+            } else {
+                while (buffer.hasRemaining()) {
+                    console.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write log output : " + e.getMessage());
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    private static byte[] colorOf(LogLevel level) {
+        return switch (level) {
+            case ERROR -> RED;
+            case WARN -> YELLOW;
+            case INFO -> GREEN;
+            case DEBUG -> CYAN;
+            default -> BLUE;
+        };
+    }
+
+    private static byte[] ansi(String code) {
+        return code.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // stops accepting events, lets the writer drain what is already published and waits for it
+    void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = Math.max(1, sampleRate);
+    }
+
+    public void setMaxFileSizeBytes(long maxFileSizeBytes) {
+        this.maxFileSizeBytes = maxFileSizeBytes;
+    }
+
+    public void setMaxHistory(int maxHistory) {
+        this.maxHistory = Math.max(1, maxHistory);
+    }
+
+    public void setJsonFormat(boolean jsonFormat) {
+        this.jsonFormat = jsonFormat;
+    }
+
+    public void setConsoleEnabled(boolean consoleEnabled) {
+        this.consoleEnabled = consoleEnabled;
+    }
+}
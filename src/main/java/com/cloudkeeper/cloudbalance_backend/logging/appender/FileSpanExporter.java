@@ -0,0 +1,117 @@
+package com.cloudkeeper.cloudbalance_backend.logging.appender;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Writes finished spans as one JSON object per line (OTLP field names, flattened) to a rolling file, a
+ * stand-in for a collector when running locally. Called from the batch span processor's single worker
+ * thread, one write per batch.
+ */
+public final class FileSpanExporter implements SpanExporter {
+
+    private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final RollingLogFile file;
+    private final long maxFileSizeBytes;
+    private final int maxHistory;
+    private final StringBuilder batch = new StringBuilder(4096);
+    private boolean shutdown;
+
+    public FileSpanExporter(Path path, long maxFileSizeBytes, int maxHistory) throws IOException {
+        this.file = new RollingLogFile(path);
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        this.maxHistory = maxHistory;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        if (shutdown) {
+            return CompletableResultCode.ofFailure();
+        }
+        batch.setLength(0);
+        for (SpanData span : spans) {
+            appendSpan(span);
+        }
+        try {
+            file.write(ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8)), maxFileSizeBytes, maxHistory);
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            System.err.println("Failed to export spans : " + e.getMessage());
+            return CompletableResultCode.ofFailure();
+        } finally {
+            if (batch.length() > 64 * 1024) {
+                // do not hold on to the buffer of an unusually large batch
+                batch.setLength(0);
+                batch.trimToSize();
+            }
+        }
+    }
+
+    private void appendSpan(SpanData span) {
+        batch.append("{\"traceId\":\"").append(span.getTraceId())
+                .append("\",\"spanId\":\"").append(span.getSpanId()).append('"');
+        if (span.getParentSpanContext().isValid()) {
+            batch.append(",\"parentSpanId\":\"").append(span.getParentSpanId()).append('"');
+        }
+        batch.append(",\"name\":");
+        LogLineEncoder.appendJsonString(batch, span.getName());
+        String service = span.getResource().getAttribute(SERVICE_NAME);
+        if (service != null) {
+            batch.append(",\"service\":");
+            LogLineEncoder.appendJsonString(batch, service);
+        }
+        batch.append(",\"kind\":\"").append(span.getKind().name())
+                .append("\",\"startTimeUnixNano\":").append(span.getStartEpochNanos())
+                .append(",\"endTimeUnixNano\":").append(span.getEndEpochNanos())
+                .append(",\"durationMs\":").append(Math.round((span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000.0) / 1_000.0)
+                .append(",\"status\":\"").append(span.getStatus().getStatusCode().name()).append('"');
+
+        batch.append(",\"attributes\":{");
+        boolean[] first = {true};
+        span.getAttributes().forEach((key, value) -> {
+            if (!first[0]) {
+                batch.append(',');
+            }
+            first[0] = false;
+            LogLineEncoder.appendJsonString(batch, key.getKey());
+            batch.append(':');
+            switch (value) {
+                case Long number -> batch.append(number.longValue());
+                case Boolean flag -> batch.append(flag.booleanValue());
+                case Double number when Double.isFinite(number) -> batch.append(number.doubleValue());
+                default -> LogLineEncoder.appendJsonString(batch, String.valueOf(value));
+            }
+        });
+        batch.append("}}").append(LINE_SEPARATOR);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        // every export is written through, nothing is buffered between batches
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (shutdown) {
+            return CompletableResultCode.ofSuccess();
+        }
+        shutdown = true;
+        try {
+            file.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.cloudkeeper.cloudbalance_backend.logging.appender;
+
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevel;
+
+import java.util.Map;
+
+// preallocated ring buffer slot, written by one producer and read by the writer thread
+final class LogEvent {
+
+    // a slot that once held a huge message gives the memory back instead of pinning it forever
+    private static final int MAX_RETAINED_CHARS = 8192;
+
+    long timestampMillis;
+    LogLevel level;
+    String loggerName;
+    String threadName;
+    final StringBuilder message = new StringBuilder(256);
+    Throwable throwable;
+    // request context captured on the logging thread
+    String requestId;
+    Long userId;
+    String sessionId;
+    // structured fields of summary events, null for plain log statements
+    Map<String, ?> fields;
+
+    void clear() {
+        if (message.capacity() > MAX_RETAINED_CHARS) {
+            message.setLength(MAX_RETAINED_CHARS);
+            message.trimToSize();
+        }
+        message.setLength(0);
+        throwable = null;
+        requestId = null;
+        userId = null;
+        sessionId = null;
+        fields = null;
+    }
+}
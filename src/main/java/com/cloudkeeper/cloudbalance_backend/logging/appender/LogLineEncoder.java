@@ -0,0 +1,259 @@
+package com.cloudkeeper.cloudbalance_backend.logging.appender;
+
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevel;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Renders a log event into a reused buffer and encodes it as UTF-8 straight into a ByteBuffer, either as
+ * {@code [timestamp] [thread] [LEVEL] [logger] [requestId] - message key=value} text or as one JSON
+ * object per line. Timestamp prefixes are formatted once per second and only the milliseconds are
+ * rendered per line, so apart from stack traces and structured fields a line costs no allocation.
+ * Not thread-safe, the appender's writer thread owns one instance.
+ */
+public final class LogLineEncoder {
+
+    private static final DateTimeFormatter SECOND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.");
+    private static final DateTimeFormatter ISO_SECOND_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.");
+    private static final DateTimeFormatter OFFSET_FORMATTER = DateTimeFormatter.ofPattern("XXX");
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final ZoneId zone;
+    private final StringBuilder line = new StringBuilder(512);
+    private final StringBuilder secondPrefix = new StringBuilder(24);
+    private final StringBuilder isoSecondPrefix = new StringBuilder(24);
+    private final StringBuilder isoOffset = new StringBuilder(8);
+    private long cachedSecond = Long.MIN_VALUE;
+
+    public LogLineEncoder() {
+        this(ZoneId.systemDefault());
+    }
+
+    public LogLineEncoder(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    public void format(LogLevel level, long timestampMillis, String threadName, String loggerName,
+                       CharSequence message, Throwable throwable) {
+        format(false, level, timestampMillis, threadName, loggerName, message, throwable, null, null, null, null);
+    }
+
+    public void format(boolean json, LogLevel level, long timestampMillis, String threadName, String loggerName,
+                       CharSequence message, Throwable throwable,
+                       String requestId, Long userId, String sessionId, Map<String, ?> fields) {
+        line.setLength(0);
+        refreshTimestampCache(timestampMillis);
+        if (json) {
+            formatJson(level, timestampMillis, threadName, loggerName, message, throwable, requestId, userId, sessionId, fields);
+        } else {
+            formatText(level, timestampMillis, threadName, loggerName, message, throwable, requestId, fields);
+        }
+    }
+
+    private void formatText(LogLevel level, long timestampMillis, String threadName, String loggerName,
+                            CharSequence message, Throwable throwable, String requestId, Map<String, ?> fields) {
+        line.append('[').append(secondPrefix);
+        appendMillis(timestampMillis);
+        line.append("] [").append(threadName)
+                .append("] [").append(level.name())
+                .append("] [").append(loggerName);
+        if (requestId != null) {
+            line.append("] [").append(requestId);
+        }
+        line.append("] - ").append(message);
+        if (fields != null) {
+            fields.forEach((key, value) -> line.append(' ').append(key).append('=').append(value));
+        }
+        line.append(LINE_SEPARATOR);
+        if (throwable != null) {
+            line.append(stackTrace(throwable));
+        }
+    }
+
+    private void formatJson(LogLevel level, long timestampMillis, String threadName, String loggerName,
+                            CharSequence message, Throwable throwable,
+                            String requestId, Long userId, String sessionId, Map<String, ?> fields) {
+        line.append("{\"ts\":\"").append(isoSecondPrefix);
+        appendMillis(timestampMillis);
+        line.append(isoOffset).append('"');
+        line.append(",\"level\":\"").append(level.name()).append('"');
+        appendJsonField("thread", threadName);
+        appendJsonField("logger", loggerName);
+        appendJsonField("msg", message);
+        if (requestId != null) {
+            appendJsonField("requestId", requestId);
+        }
+        if (userId != null) {
+            line.append(",\"userId\":").append(userId.longValue());
+        }
+        if (sessionId != null) {
+            appendJsonField("sessionId", sessionId);
+        }
+        if (fields != null) {
+            fields.forEach((key, value) -> {
+                line.append(',');
+                appendJsonValue(key);
+                line.append(':');
+                appendJsonValue(value);
+            });
+        }
+        if (throwable != null) {
+            appendJsonField("error", throwable.toString());
+            appendJsonField("stackTrace", stackTrace(throwable));
+        }
+        line.append('}').append(LINE_SEPARATOR);
+    }
+
+    private void appendJsonField(String key, CharSequence value) {
+        line.append(",\"").append(key).append("\":");
+        appendJsonValue(value);
+    }
+
+    private void appendJsonValue(Object value) {
+        switch (value) {
+            case null -> line.append("null");
+            case Long number -> line.append(number.longValue());
+            case Integer number -> line.append(number.intValue());
+            case Double number when Double.isFinite(number) -> line.append(number.doubleValue());
+            case Number number when !(number instanceof Double) && !(number instanceof Float) -> line.append(number);
+            case Boolean flag -> line.append(flag.booleanValue());
+            case Map<?, ?> map -> {
+                line.append('{');
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (!first) {
+                        line.append(',');
+                    }
+                    first = false;
+                    appendJsonValue(String.valueOf(entry.getKey()));
+                    line.append(':');
+                    appendJsonValue(entry.getValue());
+                }
+                line.append('}');
+            }
+            case CharSequence chars -> appendJsonString(chars);
+            default -> appendJsonString(String.valueOf(value));
+        }
+    }
+
+    private void appendJsonString(CharSequence value) {
+        appendJsonString(line, value);
+    }
+
+    // quoted and escaped JSON string, shared with the span exporter
+    static void appendJsonString(StringBuilder target, CharSequence value) {
+        target.append('"');
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> target.append("\\\"");
+                case '\\' -> target.append("\\\\");
+                case '\n' -> target.append("\\n");
+                case '\r' -> target.append("\\r");
+                case '\t' -> target.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        target.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        target.append(c);
+                    }
+                }
+            }
+        }
+        target.append('"');
+    }
+
+    public int length() {
+        return line.length();
+    }
+
+    // upper bound of the bytes still to encode from the given char, for deciding whether to flush first
+    public int maxEncodedLength(int fromChar) {
+        return (line.length() - fromChar) * 3;
+    }
+
+    /**
+     * Encodes the formatted line from {@code fromChar} until it is done or {@code out} is full and
+     * returns the index of the first char not encoded, equal to {@link #length()} when complete.
+     */
+    public int encode(ByteBuffer out, int fromChar) {
+        int length = line.length();
+        int i = fromChar;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c < 0x80) {
+                if (!out.hasRemaining()) {
+                    return i;
+                }
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                if (out.remaining() < 2) {
+                    return i;
+                }
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(line.charAt(i + 1))) {
+                if (out.remaining() < 4) {
+                    return i;
+                }
+                int codePoint = Character.toCodePoint(c, line.charAt(i + 1));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // unpaired surrogate, same replacement String.getBytes would use
+                if (!out.hasRemaining()) {
+                    return i;
+                }
+                out.put((byte) '?');
+            } else {
+                if (out.remaining() < 3) {
+                    return i;
+                }
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private void refreshTimestampCache(long timestampMillis) {
+        long second = Math.floorDiv(timestampMillis, 1000);
+        if (second == cachedSecond) {
+            return;
+        }
+        ZonedDateTime time = Instant.ofEpochSecond(second).atZone(zone);
+        secondPrefix.setLength(0);
+        SECOND_FORMATTER.formatTo(time, secondPrefix);
+        isoSecondPrefix.setLength(0);
+        ISO_SECOND_FORMATTER.formatTo(time, isoSecondPrefix);
+        isoOffset.setLength(0);
+        OFFSET_FORMATTER.formatTo(time, isoOffset);
+        cachedSecond = second;
+    }
+
+    private void appendMillis(long timestampMillis) {
+        int millis = (int) Math.floorMod(timestampMillis, 1000);
+        line.append((char) ('0' + millis / 100))
+                .append((char) ('0' + millis / 10 % 10))
+                .append((char) ('0' + millis % 10));
+    }
+
+    private static String stackTrace(Throwable throwable) {
+        StringWriter trace = new StringWriter();
+        throwable.printStackTrace(new PrintWriter(trace));
+        return trace.toString();
+    }
+}
@@ -0,0 +1,8 @@
+package com.cloudkeeper.cloudbalance_backend.logging.appender;
+
+// what a caller does when the ring buffer is full, WARN and ERROR events always wait for space
+public enum OverflowPolicy {
+    BLOCK,   // wait for the writer to free a slot
+    DROP,    // discard the event and count it
+    SAMPLE   // keep one of every sample-rate overflowing events (waiting for it), drop the rest
+}
@@ -0,0 +1,133 @@
+package com.cloudkeeper.cloudbalance_backend.logging.appender;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log file held open on one FileChannel. Rolls to {@code <name>-<date>.<n>.log} when the
+ * next write would exceed the size limit or the day changes, and keeps at most {@code maxHistory}
+ * archives. Only touched by the writer thread.
+ */
+final class RollingLogFile {
+
+    private static final long ROLL_RETRY_MILLIS = 60_000L;
+
+    private final Path file;
+    private final String baseName;
+    private FileChannel channel;
+    private long size;
+    private long nextRolloverMillis;
+    private LocalDate currentDay;
+    // after a failed roll-over the current file keeps growing until this time, then rolling is retried
+    private long rollRetryMillis;
+
+    RollingLogFile(Path file) throws IOException {
+        this.file = file;
+        String fileName = file.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        this.baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        open();
+    }
+
+    void write(ByteBuffer buffer, long maxFileSize, int maxHistory) throws IOException {
+        long now = System.currentTimeMillis();
+        if (!channel.isOpen()) {
+            open();
+        }
+        if (now >= rollRetryMillis
+                && (now >= nextRolloverMillis || (size > 0 && size + buffer.remaining() > maxFileSize))) {
+            roll(maxHistory, now);
+        }
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+        ZoneId zone = ZoneId.systemDefault();
+        currentDay = LocalDate.now(zone);
+        nextRolloverMillis = currentDay.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    // the channel is reopened whatever happens to the move, so a failed roll-over never leaves it closed;
+    // if the move fails the current file is appended to and the roll-over retried a minute later
+    private void roll(int maxHistory, long now) throws IOException {
+        channel.close();
+        boolean moved = false;
+        try {
+            if (Files.exists(file) && Files.size(file) > 0) {
+                Files.move(file, nextArchive());
+            }
+            moved = true;
+        } catch (IOException e) {
+            rollRetryMillis = now + ROLL_RETRY_MILLIS;
+            System.err.println("Failed to roll log file " + file + " : " + e.getMessage());
+        } finally {
+            open();
+        }
+        if (moved) {
+            try {
+                pruneArchives(maxHistory);
+            } catch (IOException e) {
+                System.err.println("Failed to prune log archives of " + file + " : " + e.getMessage());
+            }
+        }
+    }
+
+    private Path nextArchive() {
+        Path dir = file.toAbsolutePath().getParent();
+        for (int index = 1; ; index++) {
+            Path candidate = dir.resolve(baseName + "-" + currentDay + "." + index + ".log");
+            if (!Files.exists(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    private void pruneArchives(int maxHistory) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        List<Path> archives = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(baseName + "-") && name.endsWith(".log");
+            }).forEach(archives::add);
+        }
+        if (archives.size() <= maxHistory) {
+            return;
+        }
+        // oldest first, archives rolled within the same millisecond ordered by their index
+        archives.sort(Comparator.<Path>comparingLong(p -> p.toFile().lastModified()).thenComparingInt(RollingLogFile::archiveIndex));
+        for (Path old : archives.subList(0, archives.size() - maxHistory)) {
+            Files.deleteIfExists(old);
+        }
+    }
+
+    private static int archiveIndex(Path archive) {
+        String name = archive.getFileName().toString();
+        String withoutExtension = name.substring(0, name.length() - ".log".length());
+        try {
+            return Integer.parseInt(withoutExtension.substring(withoutExtension.lastIndexOf('.') + 1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
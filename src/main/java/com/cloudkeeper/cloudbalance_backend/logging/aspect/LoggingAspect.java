@@ -3,6 +3,10 @@ package com.cloudkeeper.cloudbalance_backend.logging.aspect;
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
 import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
 import com.cloudkeeper.cloudbalance_backend.logging.annotation.Loggable;
+import com.cloudkeeper.cloudbalance_backend.logging.context.LogContext;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.RequiredArgsConstructor;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -14,37 +18,57 @@ import java.util.Arrays;
 
 @Component
 @Aspect
+@RequiredArgsConstructor
 public class LoggingAspect {
+
+    private final ObservationRegistry observationRegistry;
+
+    // every call is observed as app.method.duration (timer and trace span); inside a request the time also goes into the request
+    // summary as a phase and the per-call lines stay at DEBUG, outside of one the completion line is INFO
     @Around("@annotation(loggable)")
     public Object logExecutionTime(ProceedingJoinPoint joinPoint, Loggable loggable) throws Throwable {
         MethodSignature signature = (MethodSignature) joinPoint.getSignature();
         Logger logger = LoggerFactory.getLogger(signature.getDeclaringType());
-
         String className = signature.getDeclaringType().getSimpleName();
         String methodName = signature.getName();
+        boolean inRequest = LogContext.current() != null;
 
         if (loggable.logArgs()) {
-            logger.info(">>> Starting {}.{}() with args : {}", className, methodName, Arrays.toString(joinPoint.getArgs()));
+            logger.debug(">>> Starting {}.{}() with args : {}", () -> className, () -> methodName, () -> Arrays.toString(joinPoint.getArgs()));
         } else {
-            logger.info(">>> Starting {}.{}()", className, methodName);
+            logger.debug(">>> Starting {}.{}()", className, methodName);
         }
 
-        long startTime = System.currentTimeMillis();
+        Observation observation = Observation.createNotStarted("app.method.duration", observationRegistry)
+                .contextualName(className + "." + methodName)
+                .lowCardinalityKeyValue("class", className)
+                .lowCardinalityKeyValue("method", methodName)
+                .start();
+        long startNanos = System.nanoTime();
         Object result = null;
 
-        try {
+        try (Observation.Scope scope = observation.openScope()) {
             result = joinPoint.proceed();
             return result;
+        } catch (Throwable t) {
+            observation.error(t);
+            throw t;
         } finally {
-            long executionTime = System.currentTimeMillis() - startTime;
+            observation.stop();
+            long executionNanos = System.nanoTime() - startNanos;
 
             // log execution time
             if (loggable.logExecutionTime()) {
-                logger.info("<<< Completed {}.{}() in {} ms", className, methodName, executionTime);
+                if (inRequest) {
+                    LogContext.recordPhase(className + "." + methodName, executionNanos);
+                    logger.debug("<<< Completed {}.{}() in {} ms", className, methodName, executionNanos / 1_000_000);
+                } else {
+                    logger.info("<<< Completed {}.{}() in {} ms", className, methodName, executionNanos / 1_000_000);
+                }
             }
             // log result
             if (loggable.logResult() && result != null) {
-                logger.info("Result : {}", result);
+                logger.debug("Result : {}", result);
             }
         }
     }
@@ -0,0 +1,124 @@
+package com.cloudkeeper.cloudbalance_backend.logging.context;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Request-scoped identifiers and timings attached to every log event written while a request is handled.
+ * <p>
+ * Bound per thread, which also holds for virtual threads since each request gets its own. Work handed to
+ * executors keeps the context through {@link LogContextTaskDecorator}; parent and child tasks share one
+ * instance, so phases recorded by async work show up in the request summary when they finish in time.
+ */
+public final class LogContext {
+
+    private static final ThreadLocal<LogContext> CURRENT = new ThreadLocal<>();
+
+    private final String requestId;
+    private final long startNanos = System.nanoTime();
+    private volatile Long userId;
+    private volatile String sessionId;
+    private volatile String handler;
+    private volatile String error;
+    // phase name -> accumulated nanos, e.g. "auth", "handler", "SessionManagementService.isSessionValid"
+    private final Map<String, Long> phaseNanos = new ConcurrentHashMap<>();
+
+    private LogContext(String requestId) {
+        this.requestId = requestId;
+    }
+
+    public static LogContext start(String requestId) {
+        LogContext context = new LogContext(requestId);
+        CURRENT.set(context);
+        return context;
+    }
+
+    // null outside of a request (startup, scheduled jobs)
+    public static LogContext current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    // binds the given context for the current thread and returns the one it replaced
+    static LogContext attach(LogContext context) {
+        LogContext previous = CURRENT.get();
+        if (context == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(context);
+        }
+        return previous;
+    }
+
+    // attaches the authenticated identity to the current request, null arguments leave the value as is
+    public static void identify(Long userId, String sessionId) {
+        LogContext context = CURRENT.get();
+        if (context == null) {
+            return;
+        }
+        if (userId != null) {
+            context.userId = userId;
+        }
+        if (sessionId != null) {
+            context.sessionId = sessionId;
+        }
+    }
+
+    public static void recordPhase(String phase, long nanos) {
+        LogContext context = CURRENT.get();
+        if (context != null) {
+            context.phaseNanos.merge(phase, nanos, Long::sum);
+        }
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getHandler() {
+        return handler;
+    }
+
+    public void setHandler(String handler) {
+        this.handler = handler;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    // phase timings in milliseconds, sorted by name for stable output
+    public Map<String, Double> phaseMillis() {
+        Map<String, Double> millis = new TreeMap<>();
+        phaseNanos.forEach((phase, nanos) -> millis.put(phase, Math.round(nanos / 1_000.0) / 1_000.0));
+        return millis;
+    }
+}
@@ -0,0 +1,23 @@
+package com.cloudkeeper.cloudbalance_backend.logging.context;
+
+import org.springframework.core.task.TaskDecorator;
+
+// carries the submitting thread's LogContext into executor and virtual-thread tasks
+public class LogContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        LogContext context = LogContext.current();
+        if (context == null) {
+            return runnable;
+        }
+        return () -> {
+            LogContext previous = LogContext.attach(context);
+            try {
+                runnable.run();
+            } finally {
+                LogContext.attach(previous);
+            }
+        };
+    }
+}
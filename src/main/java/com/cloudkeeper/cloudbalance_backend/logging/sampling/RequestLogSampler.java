@@ -0,0 +1,86 @@
+package com.cloudkeeper.cloudbalance_backend.logging.sampling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which request summaries are written. Failed requests and requests slower than the slow
+ * threshold are always logged, successful ones 1 in {@code rate} per endpoint, so the access log grows
+ * with the number of errors and outliers instead of with traffic.
+ * <p>
+ * Endpoints are keyed by handler ({@code Controller.method}); rates are set with
+ * {@code app.logging.sampling.default-rate} and overridden per handler with
+ * {@code app.logging.sampling.endpoints.<Controller.method>=<rate>}. A rate of 1 logs every request,
+ * 0 logs none of the successful fast ones.
+ */
+@Component
+public class RequestLogSampler implements EnvironmentAware {
+
+    public enum Decision {
+        SKIP, SAMPLED, ERROR, SLOW;
+
+        public boolean isLogged() {
+            return this != SKIP;
+        }
+    }
+
+    private volatile int defaultRate = 1;
+    private volatile long slowThresholdNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile Map<String, Integer> endpointRates = Map.of();
+    // per endpoint request counters, bounded by the number of handlers
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Value("${app.logging.sampling.default-rate:1}")
+    public void setDefaultRate(int defaultRate) {
+        this.defaultRate = Math.max(0, defaultRate);
+    }
+
+    @Value("${app.logging.sampling.slow-ms:1000}")
+    public void setSlowThresholdMillis(long slowThresholdMillis) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        setEndpointRates(Binder.get(environment)
+                .bind("app.logging.sampling.endpoints", Bindable.mapOf(String.class, Integer.class))
+                .orElse(Map.of()));
+    }
+
+    public void setEndpointRates(Map<String, Integer> endpointRates) {
+        this.endpointRates = Map.copyOf(endpointRates);
+    }
+
+    public Decision decide(String endpoint, boolean failed, long durationNanos) {
+        if (failed) {
+            return Decision.ERROR;
+        }
+        if (durationNanos >= slowThresholdNanos) {
+            return Decision.SLOW;
+        }
+        int rate = rateOf(endpoint);
+        if (rate <= 0) {
+            return Decision.SKIP;
+        }
+        if (rate == 1) {
+            return Decision.SAMPLED;
+        }
+        long count = counters.computeIfAbsent(endpoint, key -> new AtomicLong()).getAndIncrement();
+        return count % rate == 0 ? Decision.SAMPLED : Decision.SKIP;
+    }
+
+    // 1 in rateOf(endpoint) successful requests are logged, written into sampled events for re-weighting
+    public int rateOf(String endpoint) {
+        Integer rate = endpointRates.get(endpoint);
+        return rate != null ? Math.max(0, rate) : defaultRate;
+    }
+}
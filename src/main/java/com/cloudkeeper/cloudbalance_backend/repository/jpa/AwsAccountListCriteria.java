@@ -0,0 +1,16 @@
+package com.cloudkeeper.cloudbalance_backend.repository.jpa;
+
+/**
+ * Filters and keyset position of one account listing page. Null filters are left out of the query
+ * entirely, so each combination gets its own plan on the matching index. {@code afterId} (and
+ * {@code afterAlias} when sorting by alias) is the last row of the previous page.
+ */
+public record AwsAccountListCriteria(Boolean active,
+                                     String aliasPrefix,
+                                     Long assignedUserId,
+                                     boolean sortByAlias,
+                                     boolean descending,
+                                     String afterAlias,
+                                     Long afterId,
+                                     int limit) {
+}
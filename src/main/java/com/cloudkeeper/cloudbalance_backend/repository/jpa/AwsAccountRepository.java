@@ -1,21 +1,96 @@
 package com.cloudkeeper.cloudbalance_backend.repository.jpa;
 
 import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
-import com.cloudkeeper.cloudbalance_backend.entity.User;
-import io.micrometer.common.KeyValues;
-import jakarta.validation.constraints.NotEmpty;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AccountUserEmail;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AwsAccountRef;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AwsAccountSummary;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AwsAccountRepository extends JpaRepository<AwsAccount, Long> {
+public interface AwsAccountRepository extends JpaRepository<AwsAccount, Long>, AwsAccountRepositoryCustom {
     Optional<AwsAccount> findByAccountId(String accountId);
     List<AwsAccount> findByActiveTrue();
 
     @Query("SELECT a FROM AwsAccount a JOIN a.assignedUsers u WHERE u.id = :userId")
     List<AwsAccount> findByAssignedUserId(Long userId);
+
+    @Query("SELECT a.accountId FROM AwsAccount a")
+    List<String> findAllAccountIds();
+
+    @Query("SELECT a.accountId FROM AwsAccount a JOIN a.assignedUsers u WHERE u.id = :userId")
+    List<String> findAccountIdsByAssignedUserId(Long userId);
+
+    // read model of the account listing: one grouped query instead of a users collection load per account
+    String ACCOUNT_SUMMARY_SELECT = """
+            SELECT a.id AS id, a.accountId AS accountId, a.accountAlias AS accountAlias, a.roleArn AS roleArn,
+                   a.active AS active, a.createdAt AS createdAt, a.updateAt AS updatedAt, COUNT(u.id) AS assignedUsersCount
+            FROM AwsAccount a LEFT JOIN a.assignedUsers u
+            GROUP BY a.id, a.accountId, a.accountAlias, a.roleArn, a.active, a.createdAt, a.updateAt
+            """;
+
+    @Query(ACCOUNT_SUMMARY_SELECT + " ORDER BY a.id")
+    List<AwsAccountSummary> findAllAccountSummaries();
+
+    @Query("SELECT a.id AS accountId, u.email AS email FROM AwsAccount a JOIN a.assignedUsers u")
+    List<AccountUserEmail> findAllAssignedUserEmails();
+
+    @Query("SELECT a.id AS accountId, u.email AS email FROM AwsAccount a JOIN a.assignedUsers u WHERE a.id IN :accountIds")
+    List<AccountUserEmail> findAssignedUserEmails(Collection<Long> accountIds);
+
+    @Query("SELECT a.id AS id, a.accountAlias AS accountAlias, a.active AS active FROM AwsAccount a WHERE a.id IN :accountIds")
+    List<AwsAccountRef> findAccountRefs(Collection<Long> accountIds);
+
+    // bulk assignment in one statement per batch : inserts the missing rows for the active accounts among
+    // :accountIds and returns the account ids actually inserted, existing assignments are left alone
+    @Query(value = """
+            INSERT INTO user_account_assignments (user_id, account_id)
+            SELECT :userId, a.id
+            FROM aws_accounts a
+            WHERE a.id = ANY(:accountIds)
+              AND a.active = true
+            ON CONFLICT (user_id, account_id) DO NOTHING
+            RETURNING account_id
+            """, nativeQuery = true)
+    List<Long> insertAssignments(@Param("userId") Long userId, @Param("accountIds") Long[] accountIds);
+
+    // bulk removal, returns the account ids whose assignment existed and was deleted
+    @Query(value = """
+            DELETE FROM user_account_assignments
+            WHERE user_id = :userId
+              AND account_id = ANY(:accountIds)
+            RETURNING account_id
+            """, nativeQuery = true)
+    List<Long> deleteAssignments(@Param("userId") Long userId, @Param("accountIds") Long[] accountIds);
+
+    // one chunk of a matrix assignment : every user x every active account, existing pairs are left alone.
+    // users and accounts are re-checked here, so rows removed or deactivated since validation are skipped
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_account_assignments (user_id, account_id)
+            SELECT u.id, a.id
+            FROM users u
+            CROSS JOIN aws_accounts a
+            WHERE u.id = ANY(:userIds)
+              AND u.role = 'CUSTOMER'
+              AND a.id = ANY(:accountIds)
+              AND a.active = true
+            ON CONFLICT (user_id, account_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertAssignmentMatrix(@Param("userIds") Long[] userIds, @Param("accountIds") Long[] accountIds);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM user_account_assignments
+            WHERE user_id = ANY(:userIds)
+              AND account_id = ANY(:accountIds)
+            """, nativeQuery = true)
+    int deleteAssignmentMatrix(@Param("userIds") Long[] userIds, @Param("accountIds") Long[] accountIds);
 }
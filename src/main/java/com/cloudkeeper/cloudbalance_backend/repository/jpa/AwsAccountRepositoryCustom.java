@@ -0,0 +1,14 @@
+package com.cloudkeeper.cloudbalance_backend.repository.jpa;
+
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AwsAccountSummary;
+
+import java.util.List;
+
+public interface AwsAccountRepositoryCustom {
+
+    // keyset page of account summaries, at most criteria.limit() rows
+    List<AwsAccountSummary> findAccountSummaries(AwsAccountListCriteria criteria);
+
+    // rows matching the filters of the criteria, its keyset position is ignored
+    long countAccounts(AwsAccountListCriteria criteria);
+}
@@ -0,0 +1,143 @@
+package com.cloudkeeper.cloudbalance_backend.repository.jpa;
+
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AwsAccountSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// dynamic JPQL for the account listing, only the filters that are set end up in the WHERE clause
+class AwsAccountRepositoryImpl implements AwsAccountRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AwsAccountSummary> findAccountSummaries(AwsAccountListCriteria criteria) {
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder jpql = new StringBuilder("""
+                SELECT a.id AS id, a.accountId AS accountId, a.accountAlias AS accountAlias, a.roleArn AS roleArn,
+                       a.active AS active, a.createdAt AS createdAt, a.updateAt AS updatedAt, COUNT(u.id) AS assignedUsersCount
+                FROM AwsAccount a LEFT JOIN a.assignedUsers u
+                WHERE 1 = 1""");
+        appendFilters(jpql, parameters, criteria);
+        appendKeyset(jpql, parameters, criteria);
+        jpql.append(" GROUP BY a.id, a.accountId, a.accountAlias, a.roleArn, a.active, a.createdAt, a.updateAt");
+        String direction = criteria.descending() ? " DESC" : " ASC";
+        jpql.append(" ORDER BY ");
+        if (criteria.sortByAlias()) {
+            jpql.append("a.accountAlias").append(direction).append(", ");
+        }
+        jpql.append("a.id").append(direction);
+
+        TypedQuery<Tuple> query = entityManager.createQuery(jpql.toString(), Tuple.class);
+        parameters.forEach(query::setParameter);
+        return query.setMaxResults(criteria.limit()).getResultList().stream()
+                .<AwsAccountSummary>map(tuple -> new SummaryRow(
+                        tuple.get("id", Long.class),
+                        tuple.get("accountId", String.class),
+                        tuple.get("accountAlias", String.class),
+                        tuple.get("roleArn", String.class),
+                        tuple.get("active", Boolean.class),
+                        tuple.get("createdAt", LocalDateTime.class),
+                        tuple.get("updatedAt", LocalDateTime.class),
+                        tuple.get("assignedUsersCount", Long.class)))
+                .toList();
+    }
+
+    @Override
+    public long countAccounts(AwsAccountListCriteria criteria) {
+        Map<String, Object> parameters = new HashMap<>();
+        StringBuilder jpql = new StringBuilder("SELECT COUNT(a) FROM AwsAccount a WHERE 1 = 1");
+        appendFilters(jpql, parameters, criteria);
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class);
+        parameters.forEach(query::setParameter);
+        return query.getSingleResult();
+    }
+
+    private void appendFilters(StringBuilder jpql, Map<String, Object> parameters, AwsAccountListCriteria criteria) {
+        if (criteria.active() != null) {
+            jpql.append(" AND a.active = :active");
+            parameters.put("active", criteria.active());
+        }
+        if (criteria.aliasPrefix() != null && !criteria.aliasPrefix().isBlank()) {
+            // matches the lower(account_alias) text_pattern_ops index
+            jpql.append(" AND LOWER(a.accountAlias) LIKE :aliasPrefix ESCAPE '!'");
+            parameters.put("aliasPrefix", escapeLike(criteria.aliasPrefix().trim().toLowerCase()) + "%");
+        }
+        if (criteria.assignedUserId() != null) {
+            jpql.append(" AND EXISTS (SELECT 1 FROM User x JOIN x.assignedAccounts xa WHERE x.id = :assignedUserId AND xa.id = a.id)");
+            parameters.put("assignedUserId", criteria.assignedUserId());
+        }
+    }
+
+    private void appendKeyset(StringBuilder jpql, Map<String, Object> parameters, AwsAccountListCriteria criteria) {
+        if (criteria.afterId() == null) {
+            return;
+        }
+        String comparison = criteria.descending() ? "<" : ">";
+        if (criteria.sortByAlias()) {
+            jpql.append(" AND (a.accountAlias ").append(comparison).append(" :afterAlias")
+                    .append(" OR (a.accountAlias = :afterAlias AND a.id ").append(comparison).append(" :afterId))");
+            parameters.put("afterAlias", criteria.afterAlias());
+        } else {
+            jpql.append(" AND a.id ").append(comparison).append(" :afterId");
+        }
+        parameters.put("afterId", criteria.afterId());
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    private record SummaryRow(Long id, String accountId, String accountAlias, String roleArn, Boolean active,
+                              LocalDateTime createdAt, LocalDateTime updatedAt,
+                              long assignedUsersCount) implements AwsAccountSummary {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getAccountId() {
+            return accountId;
+        }
+
+        @Override
+        public String getAccountAlias() {
+            return accountAlias;
+        }
+
+        @Override
+        public String getRoleArn() {
+            return roleArn;
+        }
+
+        @Override
+        public Boolean getActive() {
+            return active;
+        }
+
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+
+        @Override
+        public long getAssignedUsersCount() {
+            return assignedUsersCount;
+        }
+    }
+}
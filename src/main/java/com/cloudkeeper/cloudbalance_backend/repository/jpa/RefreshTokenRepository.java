@@ -2,6 +2,7 @@ package com.cloudkeeper.cloudbalance_backend.repository.jpa;
 
 import com.cloudkeeper.cloudbalance_backend.entity.RefreshToken;
 import com.cloudkeeper.cloudbalance_backend.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -23,16 +24,58 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     @Query("DELETE FROM RefreshToken rt WHERE rt.user = :user")
     void deleteByUser(User user);
 
-    @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < :now")
-    void deleteExpiredTokens(Instant now);
+    // one keyset page of the purge : deletes up to :batchSize dead tokens after :afterId and returns their ids
+    @Query(value = """
+            WITH batch AS (SELECT id
+                           FROM refresh_tokens
+                           WHERE id > :afterId
+                             AND (expiry_date < :now OR (revoked = true AND last_activity_time < :revokedBefore))
+                           ORDER BY id
+                           LIMIT :batchSize)
+            DELETE FROM refresh_tokens rt
+            USING batch
+            WHERE rt.id = batch.id
+            RETURNING rt.id
+            """, nativeQuery = true)
+    List<Long> deleteDeadTokensAfter(@Param("afterId") long afterId,
+                                     @Param("now") Instant now,
+                                     @Param("revokedBefore") Instant revokedBefore,
+                                     @Param("batchSize") int batchSize);
+
+    // bulk revocation, one statement regardless of how many devices the user has
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true WHERE rt.user.id = :userId AND rt.revoked = false")
+    int revokeAllActiveByUserId(@Param("userId") Long userId);
 
-    @Query("SELECT rt FROM RefreshToken rt WHERE rt.user = :user AND rt.revoked = false")
-    List<RefreshToken> findActiveTokensByUser(User user);
+    // derived "first" query, rendered with LIMIT 1 and served by idx_refresh_tokens_user_active_created
+    @EntityGraph(attributePaths = "user")
+    Optional<RefreshToken> findFirstByUser_IdAndRevokedFalseOrderByCreatedAtDesc(Long userId);
+
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.lastActivityTime = :lastActivityTime WHERE rt.id = :id")
+    int updateLastActivityTime(@Param("id") Long id, @Param("lastActivityTime") Instant lastActivityTime);
 
-    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user WHERE rt.user.id = :userId AND rt.revoked = false ORDER BY rt.createdAt DESC")
-    Optional<RefreshToken> findTopByUserIdAndRevokedFalseOrderByCreatedAtDesc(@Param("userId") Long userId);
+    Optional<RefreshToken> findByUser_IdAndDeviceFingerprintAndRevokedFalse(Long userId, String deviceFingerprint);
 
-    @Query("SELECT rt FROM RefreshToken rt WHERE rt.user = :user AND rt.deviceInfo = :deviceInfo AND rt.revoked = false")
-    Optional<RefreshToken> findByUserAndDeviceInfoAndRevokedFalse(User user, String deviceInfo);
+    // rotation in one statement : insert a token for a new device or extend the active one of a known device.
+    // token_version is read from users in the same statement, conflict target is uq_refresh_tokens_user_device_active
+    @Query(value = """
+            INSERT INTO refresh_tokens (user_id, token, expiry_date, device_info, device_fingerprint, ip_address,
+                                        token_version, last_activity_time, revoked, created_at)
+            SELECT u.id, :token, :expiryDate, :deviceInfo, :deviceFingerprint, :ipAddress, u.token_version, :now, false, :now
+            FROM users u
+            WHERE u.id = :userId
+            ON CONFLICT (user_id, device_fingerprint) WHERE revoked = false
+            DO UPDATE SET expiry_date        = EXCLUDED.expiry_date,
+                          last_activity_time = EXCLUDED.last_activity_time,
+                          ip_address         = EXCLUDED.ip_address
+            RETURNING *
+            """, nativeQuery = true)
+    Optional<RefreshToken> upsertActiveToken(@Param("userId") Long userId,
+                                             @Param("token") String token,
+                                             @Param("deviceInfo") String deviceInfo,
+                                             @Param("deviceFingerprint") String deviceFingerprint,
+                                             @Param("ipAddress") String ipAddress,
+                                             @Param("expiryDate") Instant expiryDate,
+                                             @Param("now") Instant now);
 }
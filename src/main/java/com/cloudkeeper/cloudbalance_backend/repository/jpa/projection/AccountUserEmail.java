@@ -0,0 +1,8 @@
+package com.cloudkeeper.cloudbalance_backend.repository.jpa.projection;
+
+// one (account, assigned user email) pair of the user_account_assignments join
+public interface AccountUserEmail {
+    Long getAccountId();
+
+    String getEmail();
+}
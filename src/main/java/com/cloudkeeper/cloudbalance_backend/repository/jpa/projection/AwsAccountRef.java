@@ -0,0 +1,10 @@
+package com.cloudkeeper.cloudbalance_backend.repository.jpa.projection;
+
+// the account columns bulk assignment reports on
+public interface AwsAccountRef {
+    Long getId();
+
+    String getAccountAlias();
+
+    Boolean getActive();
+}
@@ -0,0 +1,22 @@
+package com.cloudkeeper.cloudbalance_backend.repository.jpa.projection;
+
+import java.time.LocalDateTime;
+
+// account row with its assigned user count, read without loading the users collection
+public interface AwsAccountSummary {
+    Long getId();
+
+    String getAccountId();
+
+    String getAccountAlias();
+
+    String getRoleArn();
+
+    Boolean getActive();
+
+    LocalDateTime getCreatedAt();
+
+    LocalDateTime getUpdatedAt();
+
+    long getAssignedUsersCount();
+}
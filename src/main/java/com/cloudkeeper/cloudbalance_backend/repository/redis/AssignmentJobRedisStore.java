@@ -0,0 +1,104 @@
+package com.cloudkeeper.cloudbalance_backend.repository.redis;
+
+import com.cloudkeeper.cloudbalance_backend.dto.response.AssignmentJobResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Status of matrix assignment jobs, one hash per job under {@code assignment:job:{jobId}}, so any node
+ * can answer a status request. Progress updates rewrite only the counters. Hashes expire after the
+ * configured TTL, which every write renews.
+ */
+@Repository
+@RequiredArgsConstructor
+public class AssignmentJobRedisStore {
+
+    public static final String JOB_KEY_PREFIX = "assignment:job:";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    public void save(AssignmentJobResponse job, Duration ttl) {
+        String key = jobKey(job.getJobId());
+        redisTemplate.opsForHash().putAll(key, toHash(job));
+        redisTemplate.expire(key, ttl);
+    }
+
+    public void updateProgress(String jobId, AssignmentJobResponse.Status status, long processedPairs, long changedPairs,
+                               String error, Duration ttl) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("status", status.name());
+        fields.put("processedPairs", String.valueOf(processedPairs));
+        fields.put("changedPairs", String.valueOf(changedPairs));
+        fields.put("updatedAt", String.valueOf(Instant.now().toEpochMilli()));
+        if (error != null) {
+            fields.put("error", error);
+        }
+        String key = jobKey(jobId);
+        redisTemplate.opsForHash().putAll(key, fields);
+        redisTemplate.expire(key, ttl);
+    }
+
+    public Optional<AssignmentJobResponse> findByJobId(String jobId) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(jobKey(jobId));
+        return hash.isEmpty() ? Optional.empty() : Optional.of(fromHash(jobId, hash));
+    }
+
+    public void delete(String jobId) {
+        redisTemplate.delete(jobKey(jobId));
+    }
+
+    public static String jobKey(String jobId) {
+        return JOB_KEY_PREFIX + jobId;
+    }
+
+    private Map<String, String> toHash(AssignmentJobResponse job) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("operation", job.getOperation());
+        fields.put("status", job.getStatus().name());
+        fields.put("totalPairs", String.valueOf(job.getTotalPairs()));
+        fields.put("processedPairs", String.valueOf(job.getProcessedPairs()));
+        fields.put("changedPairs", String.valueOf(job.getChangedPairs()));
+        fields.put("invalidUserIds", joinIds(job.getInvalidUserIds()));
+        fields.put("invalidAccountIds", joinIds(job.getInvalidAccountIds()));
+        if (job.getError() != null) {
+            fields.put("error", job.getError());
+        }
+        fields.put("createdAt", String.valueOf(job.getCreatedAt().toEpochMilli()));
+        fields.put("updatedAt", String.valueOf(job.getUpdatedAt().toEpochMilli()));
+        return fields;
+    }
+
+    private AssignmentJobResponse fromHash(String jobId, Map<Object, Object> hash) {
+        return AssignmentJobResponse.builder()
+                .jobId(jobId)
+                .operation((String) hash.get("operation"))
+                .status(AssignmentJobResponse.Status.valueOf((String) hash.get("status")))
+                .totalPairs(Long.valueOf((String) hash.get("totalPairs")))
+                .processedPairs(Long.valueOf((String) hash.get("processedPairs")))
+                .changedPairs(Long.valueOf((String) hash.get("changedPairs")))
+                .invalidUserIds(splitIds((String) hash.get("invalidUserIds")))
+                .invalidAccountIds(splitIds((String) hash.get("invalidAccountIds")))
+                .error((String) hash.get("error"))
+                .createdAt(Instant.ofEpochMilli(Long.parseLong((String) hash.get("createdAt"))))
+                .updatedAt(Instant.ofEpochMilli(Long.parseLong((String) hash.get("updatedAt"))))
+                .build();
+    }
+
+    private static String joinIds(List<Long> ids) {
+        StringJoiner joined = new StringJoiner(",");
+        ids.forEach(id -> joined.add(String.valueOf(id)));
+        return joined.toString();
+    }
+
+    private static List<Long> splitIds(String ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.stream(ids.split(",")).map(Long::valueOf).toList();
+    }
+}
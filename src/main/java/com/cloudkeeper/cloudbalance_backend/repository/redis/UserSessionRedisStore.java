@@ -0,0 +1,253 @@
+package com.cloudkeeper.cloudbalance_backend.repository.redis;
+
+import com.cloudkeeper.cloudbalance_backend.entity.UserSessionRedis;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session storage on plain Redis structures:
+ * <ul>
+ *     <li>{@code session:{sessionId}} - one hash per session, expiring with the idle timeout</li>
+ *     <li>{@code user:sessions:{userId}} - sorted set of the user's session ids scored by login time</li>
+ * </ul>
+ * No secondary-index sets, phantom keys or keyspace notifications are involved. Members whose hash
+ * has expired are pruned lazily when a user's sessions are read.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserSessionRedisStore {
+
+    public static final String SESSION_KEY_PREFIX = "session:";
+    public static final String USER_SESSIONS_KEY_PREFIX = "user:sessions:";
+
+    // only touches a session that still belongs to the user and is active
+    private static final RedisScript<Long> TOUCH_SCRIPT = RedisScript.of("""
+            if redis.call('HGET', KEYS[1], 'userId') ~= ARGV[1] or redis.call('HGET', KEYS[1], 'active') ~= '1' then
+                return 0
+            end
+            redis.call('HSET', KEYS[1], 'lastActivityTime', ARGV[2])
+            redis.call('EXPIRE', KEYS[1], ARGV[3])
+            redis.call('EXPIRE', KEYS[2], ARGV[3])
+            return 1
+            """, Long.class);
+
+    // admission in one server-side step : drop dead members, count active sessions, evict oldest or refuse, insert.
+    // session hash keys are derived from ARGV[1], fine on standalone Redis, not cluster-safe.
+    // returns {'1', evictedIds...} when admitted, {'0'} when the limit is reached
+    private static final RedisScript<List> ADMIT_SCRIPT = RedisScript.of("""
+            local prefix, sessionId = ARGV[1], ARGV[2]
+            local maxSessions, evictOldest = tonumber(ARGV[3]), ARGV[4] == '1'
+            local ttl, loginTime = tonumber(ARGV[5]), ARGV[6]
+            local active = {}
+            for _, id in ipairs(redis.call('ZRANGE', KEYS[1], 0, -1)) do
+                local state = redis.call('HGET', prefix .. id, 'active')
+                if not state then
+                    redis.call('ZREM', KEYS[1], id)
+                elseif state == '1' then
+                    active[#active + 1] = id
+                end
+            end
+            local result = {'1'}
+            local excess = #active - maxSessions + 1
+            if excess > 0 then
+                if not evictOldest then
+                    return {'0'}
+                end
+                for i = 1, excess do
+                    redis.call('DEL', prefix .. active[i])
+                    redis.call('ZREM', KEYS[1], active[i])
+                    result[#result + 1] = active[i]
+                end
+            end
+            redis.call('HSET', KEYS[2], unpack(ARGV, 7))
+            if ttl > 0 then
+                redis.call('EXPIRE', KEYS[2], ttl)
+            end
+            redis.call('ZADD', KEYS[1], loginTime, sessionId)
+            if ttl > 0 then
+                redis.call('EXPIRE', KEYS[1], ttl)
+            end
+            return result
+            """, List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    /**
+     * Atomically admits a new active session under the per-user limit. When the limit is reached the
+     * oldest sessions (by login time) are evicted if {@code evictOldest} is set, otherwise nothing is written.
+     */
+    public AdmissionResult admit(UserSessionRedis session, int maxSessions, boolean evictOldest) {
+        List<String> args = new ArrayList<>();
+        args.add(SESSION_KEY_PREFIX);
+        args.add(session.getSessionId());
+        args.add(String.valueOf(maxSessions));
+        args.add(evictOldest ? "1" : "0");
+        args.add(String.valueOf(session.getTtl() != null ? session.getTtl() : -1));
+        args.add(String.valueOf(session.getLoginTime().toEpochMilli()));
+        toHash(session).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+
+        @SuppressWarnings("unchecked")
+        List<String> result = redisTemplate.execute(ADMIT_SCRIPT,
+                List.of(userSessionsKey(session.getUserId()), sessionKey(session.getSessionId())),
+                args.toArray());
+        if (result == null || result.isEmpty() || !"1".equals(result.get(0))) {
+            return new AdmissionResult(false, Collections.emptyList());
+        }
+        return new AdmissionResult(true, result.subList(1, result.size()));
+    }
+
+    public UserSessionRedis save(UserSessionRedis session) {
+        String sessionKey = sessionKey(session.getSessionId());
+        String userKey = userSessionsKey(session.getUserId());
+        Map<String, String> fields = toHash(session);
+        long ttl = session.getTtl() != null ? session.getTtl() : -1;
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForHash().putAll(sessionKey, fields);
+                if (ttl > 0) {
+                    ops.expire(sessionKey, ttl, TimeUnit.SECONDS);
+                }
+                ops.opsForZSet().add(userKey, session.getSessionId(), session.getLoginTime().toEpochMilli());
+                // index lives as long as the longest-lived active session, short "inactive" TTLs must not shrink it
+                if (ttl > 0 && Boolean.TRUE.equals(session.getActive())) {
+                    ops.expire(userKey, ttl, TimeUnit.SECONDS);
+                }
+                return null;
+            }
+        });
+        return session;
+    }
+
+    public Optional<UserSessionRedis> findBySessionId(String sessionId) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(sessionKey(sessionId));
+        return hash.isEmpty() ? Optional.empty() : Optional.of(fromHash(sessionId, hash));
+    }
+
+    // one ZRANGE plus a single pipeline of HGETALLs, ordered by login time
+    public List<UserSessionRedis> findByUserId(Long userId) {
+        String userKey = userSessionsKey(userId);
+        Set<String> sessionIds = redisTemplate.opsForZSet().range(userKey, 0, -1);
+        if (sessionIds == null || sessionIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> ids = new ArrayList<>(sessionIds);
+        List<Object> hashes = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String id : ids) {
+                    ops.opsForHash().entries(sessionKey(id));
+                }
+                return null;
+            }
+        });
+
+        List<UserSessionRedis> sessions = new ArrayList<>(ids.size());
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> hash = (Map<Object, Object>) hashes.get(i);
+            if (hash == null || hash.isEmpty()) {
+                expired.add(ids.get(i));
+            } else {
+                sessions.add(fromHash(ids.get(i), hash));
+            }
+        }
+        if (!expired.isEmpty()) {
+            redisTemplate.opsForZSet().remove(userKey, expired.toArray());
+        }
+        return sessions;
+    }
+
+    // refreshes lastActivityTime and both TTLs in one round trip, false if the session is gone/inactive/foreign
+    public boolean touch(String sessionId, Long userId, Instant lastActivityTime, long ttlSeconds) {
+        Long updated = redisTemplate.execute(TOUCH_SCRIPT,
+                List.of(sessionKey(sessionId), userSessionsKey(userId)),
+                String.valueOf(userId), String.valueOf(lastActivityTime.toEpochMilli()), String.valueOf(ttlSeconds));
+        return updated != null && updated == 1L;
+    }
+
+    public void delete(UserSessionRedis session) {
+        deleteAll(List.of(session));
+    }
+
+    public void deleteAll(Collection<UserSessionRedis> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (UserSessionRedis session : sessions) {
+                    ops.delete(sessionKey(session.getSessionId()));
+                    ops.opsForZSet().remove(userSessionsKey(session.getUserId()), session.getSessionId());
+                }
+                return null;
+            }
+        });
+    }
+
+    public record AdmissionResult(boolean admitted, List<String> evictedSessionIds) {
+    }
+
+    public static String sessionKey(String sessionId) {
+        return SESSION_KEY_PREFIX + sessionId;
+    }
+
+    public static String userSessionsKey(Long userId) {
+        return USER_SESSIONS_KEY_PREFIX + userId;
+    }
+
+    private Map<String, String> toHash(UserSessionRedis session) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("userId", String.valueOf(session.getUserId()));
+        putIfNotNull(fields, "email", session.getEmail());
+        putIfNotNull(fields, "deviceInfo", session.getDeviceInfo());
+        putIfNotNull(fields, "deviceName", session.getDeviceName());
+        putIfNotNull(fields, "ipAddress", session.getIpAddress());
+        fields.put("loginTime", String.valueOf(session.getLoginTime().toEpochMilli()));
+        fields.put("lastActivityTime", String.valueOf(session.getLastActivityTime().toEpochMilli()));
+        fields.put("active", Boolean.TRUE.equals(session.getActive()) ? "1" : "0");
+        return fields;
+    }
+
+    private UserSessionRedis fromHash(String sessionId, Map<Object, Object> hash) {
+        return UserSessionRedis.builder()
+                .sessionId(sessionId)
+                .userId(Long.valueOf((String) hash.get("userId")))
+                .email((String) hash.get("email"))
+                .deviceInfo((String) hash.get("deviceInfo"))
+                .deviceName((String) hash.get("deviceName"))
+                .ipAddress((String) hash.get("ipAddress"))
+                .loginTime(Instant.ofEpochMilli(Long.parseLong((String) hash.get("loginTime"))))
+                .lastActivityTime(Instant.ofEpochMilli(Long.parseLong((String) hash.get("lastActivityTime"))))
+                .active("1".equals(hash.get("active")))
+                .build();
+    }
+
+    private static void putIfNotNull(Map<String, String> fields, String name, String value) {
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.cloudkeeper.cloudbalance_backend.repository.snowflake;
+
+import com.cloudkeeper.cloudbalance_backend.dto.response.QueryFingerprintStatsResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.SlowQueryResponse;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.logging.context.LogContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per fingerprint execution statistics of Snowflake queries and a ring of the most recent slow ones.
+ * <p>
+ * Recording is a map lookup and a few adders per query, negligible next to a warehouse round trip.
+ * Fingerprints are bounded by {@code app.snowflake.stats.max-fingerprints}, further shapes are counted
+ * under {@link #OTHER_FINGERPRINT} of their query type.
+ */
+@Component
+public class SnowflakeQueryStatistics {
+
+    public static final String OTHER_FINGERPRINT = "<other>";
+    private static final int MAX_SQL_LENGTH = 4096;
+
+    private final Logger logger = LoggerFactory.getLogger(SnowflakeQueryStatistics.class);
+    private final Map<String, Stats> statsByFingerprint = new ConcurrentHashMap<>();
+    private final SlowQueryResponse[] slowQueries;
+    private int nextSlowQuery;
+
+    @Value("${app.snowflake.slow-query.threshold-ms:2000}")
+    private long slowThresholdMillis;
+    @Value("${app.snowflake.stats.max-fingerprints:500}")
+    private int maxFingerprints;
+
+    public SnowflakeQueryStatistics(@Value("${app.snowflake.slow-query.capacity:100}") int slowQueryCapacity) {
+        this.slowQueries = new SlowQueryResponse[Math.max(1, slowQueryCapacity)];
+    }
+
+    public void record(String queryType, String sql, long durationNanos, long rows, long resultBytes, boolean failed) {
+        String fingerprint = SqlFingerprint.of(sql);
+        Stats stats = statsFor(queryType, fingerprint);
+        stats.count.increment();
+        if (failed) {
+            stats.errors.increment();
+        }
+        stats.totalNanos.add(durationNanos);
+        stats.maxNanos.accumulateAndGet(durationNanos, Math::max);
+        stats.rows.add(rows);
+        stats.resultBytes.add(resultBytes);
+
+        if (durationNanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)) {
+            recordSlowQuery(queryType, fingerprint, sql, durationNanos, rows, resultBytes, failed);
+        }
+    }
+
+    private Stats statsFor(String queryType, String fingerprint) {
+        String key = queryType + '\n' + fingerprint;
+        Stats stats = statsByFingerprint.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        if (statsByFingerprint.size() >= maxFingerprints) {
+            return statsByFingerprint.computeIfAbsent(queryType + '\n' + OTHER_FINGERPRINT, k -> new Stats(queryType, OTHER_FINGERPRINT));
+        }
+        return statsByFingerprint.computeIfAbsent(key, k -> new Stats(queryType, fingerprint));
+    }
+
+    private void recordSlowQuery(String queryType, String fingerprint, String sql, long durationNanos,
+                                 long rows, long resultBytes, boolean failed) {
+        LogContext context = LogContext.current();
+        SlowQueryResponse entry = SlowQueryResponse.builder()
+                .executedAt(Instant.now())
+                .queryType(queryType)
+                .fingerprint(fingerprint)
+                .sql(sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql)
+                .durationMs(toMillis(durationNanos))
+                .rows(rows)
+                .resultBytes(resultBytes)
+                .failed(failed)
+                .requestId(context != null ? context.getRequestId() : null)
+                .build();
+        synchronized (slowQueries) {
+            slowQueries[nextSlowQuery] = entry;
+            nextSlowQuery = (nextSlowQuery + 1) % slowQueries.length;
+        }
+        logger.warn("Slow Snowflake query {} took {} ms, {} rows : {}", queryType, entry.getDurationMs(), rows, fingerprint);
+    }
+
+    // sorted by the given key, descending: total (default), max, mean or count
+    public List<QueryFingerprintStatsResponse> getStatistics(String sortBy, int limit) {
+        Comparator<QueryFingerprintStatsResponse> order = switch (sortBy == null ? "total" : sortBy.toLowerCase()) {
+            case "max" -> Comparator.comparingDouble(QueryFingerprintStatsResponse::getMaxMs);
+            case "mean" -> Comparator.comparingDouble(QueryFingerprintStatsResponse::getMeanMs);
+            case "count" -> Comparator.comparingLong(QueryFingerprintStatsResponse::getCount);
+            default -> Comparator.comparingDouble(QueryFingerprintStatsResponse::getTotalMs);
+        };
+        return statsByFingerprint.values().stream()
+                .map(Stats::snapshot)
+                .sorted(order.reversed())
+                .limit(Math.max(0, limit))
+                .toList();
+    }
+
+    // most recent first
+    public List<SlowQueryResponse> getSlowQueries() {
+        List<SlowQueryResponse> entries = new ArrayList<>(slowQueries.length);
+        synchronized (slowQueries) {
+            for (int i = 1; i <= slowQueries.length; i++) {
+                SlowQueryResponse entry = slowQueries[Math.floorMod(nextSlowQuery - i, slowQueries.length)];
+                if (entry == null) {
+                    break;
+                }
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    public void reset() {
+        statsByFingerprint.clear();
+        synchronized (slowQueries) {
+            Arrays.fill(slowQueries, null);
+            nextSlowQuery = 0;
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    private static final class Stats {
+        private final String queryType;
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder resultBytes = new LongAdder();
+
+        private Stats(String queryType, String fingerprint) {
+            this.queryType = queryType;
+            this.fingerprint = fingerprint;
+        }
+
+        private QueryFingerprintStatsResponse snapshot() {
+            long executions = count.sum();
+            long total = totalNanos.sum();
+            return QueryFingerprintStatsResponse.builder()
+                    .queryType(queryType)
+                    .fingerprint(fingerprint)
+                    .count(executions)
+                    .errors(errors.sum())
+                    .totalMs(toMillis(total))
+                    .meanMs(executions == 0 ? 0 : toMillis(total / executions))
+                    .maxMs(toMillis(maxNanos.get()))
+                    .rows(rows.sum())
+                    .resultBytes(resultBytes.sum())
+                    .build();
+        }
+    }
+}
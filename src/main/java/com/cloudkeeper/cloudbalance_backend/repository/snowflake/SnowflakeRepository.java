@@ -2,6 +2,8 @@ package com.cloudkeeper.cloudbalance_backend.repository.snowflake;
 
 import com.snowflake.snowpark_java.Row;
 import com.snowflake.snowpark_java.Session;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
@@ -13,8 +15,48 @@ import java.util.List;
 public class SnowflakeRepository {
 
     private final Session snowpark;
+    private final ObservationRegistry observationRegistry;
+    private final SnowflakeQueryStatistics queryStatistics;
 
     public List<Row> executeQuery(String sql) {
-        return Arrays.asList(snowpark.sql(sql).collect());
+        return executeQuery("adhoc", sql);
+    }
+
+    // queryType becomes a tag of the app.snowflake.query timer and span, callers pass a small fixed set of names
+    public List<Row> executeQuery(String queryType, String sql) {
+        return Observation.createNotStarted("app.snowflake.query", observationRegistry)
+                .contextualName("snowflake " + queryType)
+                .lowCardinalityKeyValue("type", queryType)
+                .lowCardinalityKeyValue("db.system", "snowflake")
+                .observe(() -> collect(queryType, sql));
+    }
+
+    private List<Row> collect(String queryType, String sql) {
+        long startNanos = System.nanoTime();
+        Row[] rows = null;
+        try {
+            rows = snowpark.sql(sql).collect();
+            return Arrays.asList(rows);
+        } finally {
+            long durationNanos = System.nanoTime() - startNanos;
+            queryStatistics.record(queryType, sql, durationNanos,
+                    rows != null ? rows.length : 0, rows != null ? estimateBytes(rows) : 0, rows == null);
+        }
+    }
+
+    // rough size of the result as held by the client: chars of text values, 8 bytes for anything else
+    private static long estimateBytes(Row[] rows) {
+        long bytes = 0;
+        for (Row row : rows) {
+            for (int i = 0, size = row.size(); i < size; i++) {
+                Object value = row.get(i);
+                if (value instanceof CharSequence text) {
+                    bytes += text.length();
+                } else if (value != null) {
+                    bytes += Long.BYTES;
+                }
+            }
+        }
+        return bytes;
     }
 }
@@ -0,0 +1,55 @@
+package com.cloudkeeper.cloudbalance_backend.repository.snowflake;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes generated SQL into a fingerprint that groups executions of the same query shape.
+ * <p>
+ * Values are replaced by {@code ?}: IN lists collapse to {@code IN (?)}, literals compared against a
+ * column and literals containing digits (dates, ids) are dropped. Identifiers and format literals such
+ * as {@code DATE_TRUNC('month', ...)} stay, so each groupBy column and granularity keeps its own
+ * fingerprint.
+ */
+public final class SqlFingerprint {
+
+    private static final String LITERAL = "(?:'(?:[^']|'')*'|-?\\d+(?:\\.\\d+)?)";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern IN_LIST = Pattern.compile(
+            "(?i)\\bIN\\s*\\(\\s*" + LITERAL + "(?:\\s*,\\s*" + LITERAL + ")*\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern COMPARED = Pattern.compile("(?i)(?:=|<>|!=|<|>|\\bLIKE|\\bBETWEEN|\\bAND)\\s*$");
+    private static final Pattern COMPARED_NUMBER = Pattern.compile(
+            "(?i)((?:=|<>|!=|<|>|\\bBETWEEN|\\bAND|\\bLIMIT|\\bOFFSET)\\s*)-?\\d+(?:\\.\\d+)?\\b");
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        String normalized = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (?)");
+
+        Matcher literal = STRING_LITERAL.matcher(normalized);
+        StringBuilder fingerprint = new StringBuilder(normalized.length());
+        int last = 0;
+        while (literal.find()) {
+            fingerprint.append(normalized, last, literal.start());
+            String value = literal.group();
+            boolean isValue = value.chars().anyMatch(Character::isDigit) || isCompared(fingerprint);
+            fingerprint.append(isValue ? "?" : value);
+            last = literal.end();
+        }
+        fingerprint.append(normalized, last, normalized.length());
+
+        return COMPARED_NUMBER.matcher(fingerprint).replaceAll("$1?");
+    }
+
+    // looks only at the tail, an operator is at most a keyword and a few spaces before the literal
+    private static boolean isCompared(CharSequence preceding) {
+        int end = preceding.length();
+        return COMPARED.matcher(preceding)
+                .region(Math.max(0, end - 16), end)
+                .useTransparentBounds(true)
+                .find();
+    }
+}
@@ -1,16 +1,29 @@
 package com.cloudkeeper.cloudbalance_backend.service;
 
+import com.cloudkeeper.cloudbalance_backend.dto.request.AccountAssignmentMatrixRequest;
+import com.cloudkeeper.cloudbalance_backend.dto.response.AssignmentJobResponse;
 import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
 import com.cloudkeeper.cloudbalance_backend.entity.User;
 import com.cloudkeeper.cloudbalance_backend.entity.UserRole;
 import com.cloudkeeper.cloudbalance_backend.exception.ResourceNotFoundException;
+import com.cloudkeeper.cloudbalance_backend.helper.batch.IdBatches;
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
 import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
 import com.cloudkeeper.cloudbalance_backend.repository.jpa.AwsAccountRepository;
 import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AwsAccountRef;
+import com.cloudkeeper.cloudbalance_backend.repository.redis.AssignmentJobRedisStore;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
@@ -18,8 +31,23 @@ public class AccountAssignmentService {
 
     private final AwsAccountRepository awsAccountRepository;
     private final UserRepository userRepository;
+    private final AssignmentJobRedisStore assignmentJobRedisStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor assignmentJobExecutor;
     private final Logger logger = LoggerFactory.getLogger(AccountAssignmentService.class);
 
+    // upper bound of user x account pairs written by one statement, each chunk commits on its own
+    @Value("${app.assignments.chunk-pairs:5000}")
+    private int chunkPairs;
+    // larger jobs always run in the background
+    @Value("${app.assignments.sync-max-pairs:10000}")
+    private long syncMaxPairs;
+    @Value("${app.assignments.job-ttl-hours:24}")
+    private long jobTtlHours;
+    // ids per validation query
+    @Value("${app.assignments.lookup-batch-size:1000}")
+    private int lookupBatchSize;
+
     @Transactional
     public void assignAccount(Long awsAccountId, Long userId) {
         AwsAccount account = awsAccountRepository.findById(awsAccountId).orElseThrow(() -> new ResourceNotFoundException("Aws account not found."));
@@ -47,4 +75,117 @@ public class AccountAssignmentService {
         userRepository.save(user);
         logger.info("Account {} unassigned from user {}", account.getAccountAlias(), user.getEmail());
     }
+
+    /**
+     * Assigns (or removes) every requested account to (from) every requested user. Unknown users and
+     * accounts, non-customers and inactive accounts (when assigning) are reported and left out. The
+     * remaining pairs are written in chunks of at most {@code chunk-pairs}, one set-based statement and
+     * one transaction per chunk, with progress recorded in Redis after each chunk. Small jobs finish
+     * before this returns, large or explicitly async ones are queued and return QUEUED with their job id.
+     */
+    public AssignmentJobResponse submitMatrix(AccountAssignmentMatrixRequest request) {
+        boolean assign = request.getOperation() != AccountAssignmentMatrixRequest.Operation.REMOVE;
+        Long[] userIds = distinct(request.getUserIds());
+        Long[] accountIds = distinct(request.getAccountIds());
+
+        // lookups in batches, one IN list of up to 10,000 ids per request would be too large
+        Set<Long> validUsers = new HashSet<>();
+        IdBatches.forEachBatch(Arrays.asList(userIds), lookupBatchSize, batch -> validUsers.addAll(assign
+                ? userRepository.findExistingIdsByRole(Arrays.asList(batch), UserRole.CUSTOMER)
+                : userRepository.findExistingIds(Arrays.asList(batch))));
+        Set<Long> validAccounts = new HashSet<>();
+        IdBatches.forEachBatch(Arrays.asList(accountIds), lookupBatchSize, batch -> {
+            for (AwsAccountRef account : awsAccountRepository.findAccountRefs(Arrays.asList(batch))) {
+                if (!assign || account.getActive()) {
+                    validAccounts.add(account.getId());
+                }
+            }
+        });
+
+        Long[] users = Arrays.stream(userIds).filter(validUsers::contains).toArray(Long[]::new);
+        Long[] accounts = Arrays.stream(accountIds).filter(validAccounts::contains).toArray(Long[]::new);
+        Instant now = Instant.now();
+        AssignmentJobResponse job = AssignmentJobResponse.builder()
+                .jobId(UUID.randomUUID().toString())
+                .operation(assign ? "ASSIGN" : "REMOVE")
+                .status(AssignmentJobResponse.Status.QUEUED)
+                .totalPairs((long) users.length * accounts.length)
+                .processedPairs(0L)
+                .changedPairs(0L)
+                .invalidUserIds(Arrays.stream(userIds).filter(id -> !validUsers.contains(id)).toList())
+                .invalidAccountIds(Arrays.stream(accountIds).filter(id -> !validAccounts.contains(id)).toList())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+        assignmentJobRedisStore.save(job, jobTtl());
+        logger.info("Matrix {} job {} : {} users x {} accounts, {} invalid users, {} invalid accounts",
+                job.getOperation(), job.getJobId(), users.length, accounts.length,
+                job.getInvalidUserIds().size(), job.getInvalidAccountIds().size());
+
+        if (!Boolean.TRUE.equals(request.getAsync()) && job.getTotalPairs() <= syncMaxPairs) {
+            runMatrix(job, users, accounts, assign);
+            return job;
+        }
+        // the background run works on its own copy, the caller serializes the QUEUED snapshot
+        AssignmentJobResponse running = job.toBuilder().build();
+        try {
+            assignmentJobExecutor.execute(() -> runMatrix(running, users, accounts, assign));
+        } catch (TaskRejectedException e) {
+            assignmentJobRedisStore.delete(job.getJobId());
+            throw e;
+        }
+        return job;
+    }
+
+    public AssignmentJobResponse getMatrixJob(String jobId) {
+        return assignmentJobRedisStore.findByJobId(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment job not found: " + jobId));
+    }
+
+    // updates the job in place as well, so a synchronous caller gets the final state
+    private void runMatrix(AssignmentJobResponse job, Long[] users, Long[] accounts, boolean assign) {
+        long startNanos = System.nanoTime();
+        job.setStatus(AssignmentJobResponse.Status.RUNNING);
+        // processed and changed pairs, updated from the chunk callback
+        long[] progress = new long[2];
+        try {
+            // inside the try : a Redis failure here must end as FAILED, not leave the job QUEUED
+            assignmentJobRedisStore.updateProgress(job.getJobId(), job.getStatus(), 0, 0, null, jobTtl());
+            IdBatches.forEachMatrixChunk(users, accounts, chunkPairs, (userChunk, accountChunk) -> {
+                Integer rows = transactionTemplate.execute(status -> assign
+                        ? awsAccountRepository.insertAssignmentMatrix(userChunk, accountChunk)
+                        : awsAccountRepository.deleteAssignmentMatrix(userChunk, accountChunk));
+                progress[0] += (long) userChunk.length * accountChunk.length;
+                progress[1] += rows == null ? 0 : rows;
+                assignmentJobRedisStore.updateProgress(job.getJobId(), job.getStatus(), progress[0], progress[1], null, jobTtl());
+            });
+            job.setStatus(AssignmentJobResponse.Status.COMPLETED);
+        } catch (RuntimeException e) {
+            // committed chunks stay, re-running the same request is safe
+            logger.error("Matrix {} job {} failed after {} pairs : {}", job.getOperation(), job.getJobId(), progress[0], e.getMessage(), e);
+            job.setStatus(AssignmentJobResponse.Status.FAILED);
+            job.setError(e.getMessage());
+        }
+
+        long processed = progress[0];
+        long changed = progress[1];
+        job.setProcessedPairs(processed);
+        job.setChangedPairs(changed);
+        job.setUpdatedAt(Instant.now());
+        try {
+            assignmentJobRedisStore.updateProgress(job.getJobId(), job.getStatus(), processed, changed, job.getError(), jobTtl());
+        } catch (RuntimeException e) {
+            logger.warn("Could not record final state of assignment job {} : {}", job.getJobId(), e.getMessage());
+        }
+        logger.info("Matrix {} job {} {} : {} pairs, {} changed in {} ms", job.getOperation(), job.getJobId(),
+                job.getStatus(), processed, changed, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    private Duration jobTtl() {
+        return Duration.ofHours(jobTtlHours);
+    }
+
+    private static Long[] distinct(List<Long> ids) {
+        return ids.stream().filter(Objects::nonNull).distinct().toArray(Long[]::new);
+    }
 }
@@ -6,31 +6,42 @@ import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
-import java.util.Collection;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
-public class AppUserDetailsService implements UserDetailsService {
+public class AppUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final UserPrincipalCacheService userPrincipalCacheService;
 
     @Getter
     private Long id;
 
+    // always hits the DB, credential checks need the current password hash
     @Override
-    @Cacheable(value = "userDetails", key = "#username")
     public UserDetails loadUserByUsername(@NonNull String email) throws UsernameNotFoundException {
         // load from DB
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email : " + email));
         return UserPrincipal.create(user);
     }
+
+    // cached principal (without password) for token-authenticated requests
+    public UserPrincipal loadCachedUserByUsername(@NonNull String email) throws UsernameNotFoundException {
+        return userPrincipalCacheService.get(email, key -> (UserPrincipal) loadUserByUsername(key));
+    }
+
+    // called by DaoAuthenticationProvider after a successful login whose hash needs an upgrade
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        return ((UserPrincipal) user).withPassword(newPassword);
+    }
 }
@@ -1,5 +1,6 @@
 package com.cloudkeeper.cloudbalance_backend.service;
 
+import com.cloudkeeper.cloudbalance_backend.config.UserPrincipal;
 import com.cloudkeeper.cloudbalance_backend.dto.request.LoginRequest;
 import com.cloudkeeper.cloudbalance_backend.dto.response.AuthResponse;
 import com.cloudkeeper.cloudbalance_backend.entity.RefreshToken;
@@ -7,6 +8,8 @@ import com.cloudkeeper.cloudbalance_backend.entity.User;
 import com.cloudkeeper.cloudbalance_backend.entity.UserSessionRedis;
 import com.cloudkeeper.cloudbalance_backend.exception.InvalidCredentialsException;
 import com.cloudkeeper.cloudbalance_backend.exception.MaxSessionsReachedException;
+import com.cloudkeeper.cloudbalance_backend.exception.PasswordHashingBusyException;
+import com.cloudkeeper.cloudbalance_backend.exception.RateLimitExceededException;
 import com.cloudkeeper.cloudbalance_backend.exception.ResourceNotFoundException;
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
 import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
@@ -20,6 +23,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -27,7 +31,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.RequestBody;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -42,6 +45,8 @@ public class AuthService {
     private final RefreshTokenService refreshTokenService;
     private final SessionManagementService sessionManagementService;
     private final TokenBlackListService tokenBlackListService;
+    private final PostLoginEventService postLoginEventService;
+    private final RateLimitService rateLimitService;
     private final RedisTemplate<String, Object> redisTemplate;
 
     @Value("${jwt.access-token-expiration}")
@@ -52,14 +57,18 @@ public class AuthService {
 
     @Transactional
     public AuthResponse login(LoginRequest request, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
+        checkEmailRateLimit(request.getEmail());
+        return authenticateAndLogin(request, httpServletRequest, httpServletResponse);
+    }
+
+    private AuthResponse authenticateAndLogin(LoginRequest request, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
         try {
             logger.info("Login attempt for email :{}", request.getEmail());
 
-            // try to authenticate user
-            authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+            // try to authenticate user, the authenticated principal is reused below instead of reloading it
+            Authentication authentication = authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword()));
+            UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
             logger.info("Authentication successful for: {}", request.getEmail());
-            // load user details
-            UserDetails userDetails = appUserDetailsService.loadUserByUsername(request.getEmail());
             User user = userRepository.findByEmail(request.getEmail()).orElseThrow(() -> new InvalidCredentialsException("User not found"));
 
             // extract device info and ip
@@ -81,27 +90,17 @@ public class AuthService {
             }
 
             // generate tokens
-            String accessToken = jwtService.generateAccessToken(userDetails, user.getId(), user.getTokenVersion(), session.getSessionId());
+            String accessToken = jwtService.generateAccessToken(principal, user.getId(), user.getTokenVersion(), session.getSessionId());
             RefreshToken refreshToken = refreshTokenService.createRefreshToken(user.getId(), deviceInfo, ipAddress, session.getSessionId());
 
-            // initialize token version in redis if not exists
-            if (tokenBlackListService.getUserTokenVersion(user.getId()) == null) {
-                tokenBlackListService.setUserTokenVersion(user.getId(), user.getTokenVersion());
-            }
-
-            logger.info("=== SETTING COOKIES ===");
-            logger.info("Access Token: {}...", accessToken.substring(0, 20));
-            logger.info("Refresh Token: {}", refreshToken.getToken());
-
             // set access token in httpOnly cookie
             setAccessTokenCookie(httpServletResponse, accessToken);
 
             // set refresh token in httpOnly cookie
             setRefreshTokenCookie(httpServletResponse, refreshToken.getToken());
 
-            // update last login
-            user.setLastLogin(LocalDateTime.now());
-            userRepository.save(user);
+            // lastLogin, token version seed and audit are flushed in batches off the request thread
+            postLoginEventService.publish(user.getId(), user.getTokenVersion(), ipAddress, session.getDeviceName());
 
             logger.info("User logged in successfully : {}", request.getEmail());
 
@@ -122,6 +121,15 @@ public class AuthService {
         } catch (BadCredentialsException | InvalidCredentialsException e) {
             logger.error("Invalid credentials for email: {}", request.getEmail());
             throw new InvalidCredentialsException("Invalid email or password");
+        } catch (PasswordHashingBusyException e) {
+            throw e;
+        } catch (InternalAuthenticationServiceException e) {
+            // the provider wraps anything thrown while loading an unknown user, including the dummy hash
+            if (e.getCause() instanceof PasswordHashingBusyException busy) {
+                throw busy;
+            }
+            logger.error("Unexpected error during login for email: {}", request.getEmail(), e);
+            throw new RuntimeException("Login failed due to unexpected error", e);
         } catch (Exception e) {
             logger.error("Unexpected error during login for email: {}", request.getEmail(), e);
             throw new RuntimeException("Login failed due to unexpected error", e);
@@ -130,18 +138,18 @@ public class AuthService {
 
     @Transactional
     public AuthResponse forceLogin(@Valid @RequestBody LoginRequest request, HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
+        checkEmailRateLimit(request.getEmail());
         User user = userRepository.findByEmail(request.getEmail()).orElseThrow(() ->
                 new InvalidCredentialsException("User not found")
         );
 
-        // revoke all existing sessions and tokens
+        // revoke all existing sessions and tokens (bumps the token version once)
         refreshTokenService.revokeAllUserTokens(user);
         sessionManagementService.invalidateAllUserSessions(user.getId());
-        tokenBlackListService.incrementUserTokenVersion(user.getId());
 
         logger.info("Force logout completed for user: {}", user.getEmail());
 
-        return login(request, httpServletRequest, httpServletResponse);
+        return authenticateAndLogin(request, httpServletRequest, httpServletResponse);
     }
 
     @Transactional
@@ -156,7 +164,7 @@ public class AuthService {
         refreshToken = refreshTokenService.verifyRefreshExpiration(refreshToken);
 
         User user = refreshToken.getUser();
-        UserDetails userDetails = appUserDetailsService.loadUserByUsername(user.getEmail());
+        UserDetails userDetails = appUserDetailsService.loadCachedUserByUsername(user.getEmail());
 
         // Extract sessionId from the old access token (even if expired)
         String oldAccessToken = extractAccessToken(httpServletRequest);
@@ -237,6 +245,15 @@ public class AuthService {
         return sessionManagementService.getActiveUserSessions(user.getId());
     }
 
+    // per-account bucket, checked before any database lookup or password hash
+    private void checkEmailRateLimit(String email) {
+        long retryAfterMs = rateLimitService.tryConsumeEmail(email);
+        if (retryAfterMs > 0) {
+            logger.warn("Login attempt rate limited for email : {}", email);
+            throw new RateLimitExceededException("Too many login attempts. Please try again later.", Math.max(1, (retryAfterMs + 999) / 1000));
+        }
+    }
+
     private void setRefreshTokenCookie(HttpServletResponse httpServletResponse, String token) {
         Cookie cookie = new Cookie("refresh_token", token);
         cookie.setHttpOnly(true);
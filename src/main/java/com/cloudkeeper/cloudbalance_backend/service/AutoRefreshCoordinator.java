@@ -0,0 +1,143 @@
+package com.cloudkeeper.cloudbalance_backend.service;
+
+import com.cloudkeeper.cloudbalance_backend.config.UserPrincipal;
+import com.cloudkeeper.cloudbalance_backend.dto.response.AuthResponse;
+import com.cloudkeeper.cloudbalance_backend.entity.RefreshToken;
+import com.cloudkeeper.cloudbalance_backend.entity.UserSessionRedis;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinates access-token auto-refresh for expired tokens. Concurrent refreshes for the same session
+ * collapse into one (single-flight), the issued token is reused for the rest of the burst and the
+ * refresh token activity write is deferred off the request thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class AutoRefreshCoordinator {
+
+    private final SessionManagementService sessionManagementService;
+    private final RefreshTokenService refreshTokenService;
+    private final JwtService jwtService;
+    private final Logger logger = LoggerFactory.getLogger(AutoRefreshCoordinator.class);
+
+    @Value("${jwt.access-token-expiration}")
+    private long accessTokenExpiration;
+    @Value("${app.security.auto-refresh.burst-window-ms:5000}")
+    private long burstWindowMs;
+    @Value("${app.security.auto-refresh.wait-timeout-ms:3000}")
+    private long waitTimeoutMs;
+
+    private final ConcurrentHashMap<String, CompletableFuture<RefreshResult>> inFlight = new ConcurrentHashMap<>();
+    private Cache<String, RefreshResult> recentRefreshes;
+
+    @PostConstruct
+    void init() {
+        recentRefreshes = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(burstWindowMs))
+                .build();
+    }
+
+    // returns null when the session can not be refreshed
+    public AuthResponse refresh(String sessionId, Long userId, UserPrincipal principal) {
+        RefreshResult recent = recentRefreshes.getIfPresent(sessionId);
+        if (recent != null) {
+            logger.debug("Reusing access token issued in current burst for session : {}", sessionId);
+            return recent.userId().equals(userId) ? recent.response() : null;
+        }
+
+        CompletableFuture<RefreshResult> mine = new CompletableFuture<>();
+        CompletableFuture<RefreshResult> leader = inFlight.putIfAbsent(sessionId, mine);
+        if (leader != null) {
+            return awaitLeader(leader, sessionId, userId);
+        }
+
+        try {
+            RefreshResult result = doRefresh(sessionId, userId, principal);
+            if (result != null) {
+                recentRefreshes.put(sessionId, result);
+            }
+            mine.complete(result);
+            return result != null ? result.response() : null;
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            throw e;
+        } finally {
+            inFlight.remove(sessionId, mine);
+        }
+    }
+
+    private AuthResponse awaitLeader(CompletableFuture<RefreshResult> leader, String sessionId, Long userId) {
+        try {
+            RefreshResult result = leader.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            return result != null && result.userId().equals(userId) ? result.response() : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            logger.warn("Waiting for in-flight auto-refresh failed for session {} : {}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    private RefreshResult doRefresh(String sessionId, Long userId, UserPrincipal principal) {
+        logger.info("Starting auto-refresh for session : {}, userId : {}", sessionId, userId);
+
+        // validate session exists and is active
+        UserSessionRedis session = sessionManagementService.findActiveSessionById(sessionId).orElse(null);
+        if (session == null) {
+            logger.warn("Session not found : {}", sessionId);
+            return null;
+        }
+
+        if (!session.getUserId().equals(userId)) {
+            logger.warn("Session userId mismatch. Expected: {}, Got: {}", session.getUserId(), userId);
+            return null;
+        }
+
+        // get latest valid refresh token
+        RefreshToken refreshToken = refreshTokenService.findLatestValidRefreshToken(userId).orElse(null);
+        if (refreshToken == null) {
+            logger.warn("No valid refresh token found for user : {}", userId);
+            return null;
+        }
+
+        // check if refresh token is expired
+        try {
+            refreshTokenService.verifyRefreshExpiration(refreshToken);
+        } catch (Exception e) {
+            logger.warn("Refresh token expired for user: {}", userId);
+            return null;
+        }
+
+        // update refresh token activity timestamp off the request thread
+        refreshTokenService.touchLastActivityAsync(refreshToken.getId(), Instant.now());
+
+        // token version comes from the cached principal, which is evicted whenever the version changes
+        String newAccessToken = jwtService.generateAccessToken(principal, userId, principal.getTokenVersion(), sessionId);
+        logger.info("Auto-refresh completed successfully for user : {}", principal.getEmail());
+
+        AuthResponse response = AuthResponse.builder()
+                .accessToken(newAccessToken)
+                .sessionId(sessionId)
+                .expiresIn(accessTokenExpiration / 1000)
+                .build();
+        return new RefreshResult(userId, response);
+    }
+
+    private record RefreshResult(Long userId, AuthResponse response) {
+    }
+}
@@ -2,26 +2,33 @@ package com.cloudkeeper.cloudbalance_backend.service;
 
 
 import com.cloudkeeper.cloudbalance_backend.dto.request.AwsAccountCreateRequest;
+import com.cloudkeeper.cloudbalance_backend.dto.request.AwsAccountListRequest;
 import com.cloudkeeper.cloudbalance_backend.dto.request.BulkAccountAssignmentToUserRequest;
 import com.cloudkeeper.cloudbalance_backend.dto.response.AccountAssignmentResult;
 import com.cloudkeeper.cloudbalance_backend.dto.response.AwsAccountResponse;
 import com.cloudkeeper.cloudbalance_backend.dto.response.BulkAccountAssignmentResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.CursorPageResponse;
 import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
 import com.cloudkeeper.cloudbalance_backend.entity.User;
 import com.cloudkeeper.cloudbalance_backend.exception.ResourceAlreadyExistsException;
 import com.cloudkeeper.cloudbalance_backend.exception.ResourceNotFoundException;
+import com.cloudkeeper.cloudbalance_backend.helper.batch.IdBatches;
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
 import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.AwsAccountListCriteria;
 import com.cloudkeeper.cloudbalance_backend.repository.jpa.AwsAccountRepository;
 import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AccountUserEmail;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AwsAccountRef;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.projection.AwsAccountSummary;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -31,6 +38,10 @@ public class AwsAccountService {
     private final UserRepository userRepository;
     private final Logger logger = LoggerFactory.getLogger(AwsAccountService.class);
 
+    // ids per bulk statement, keeps array parameters and result sets bounded
+    @Value("${app.accounts.assignment-batch-size:1000}")
+    private int assignmentBatchSize = 1000;
+
     @Transactional
     public AwsAccountResponse createAwsAccount(AwsAccountCreateRequest request) {
         logger.info("Creating AWS account with ID : {}", request.getAccountId());
@@ -48,9 +59,51 @@ public class AwsAccountService {
         return mapToResponse(savedAwsAccount);
     }
 
+    // two queries whatever the number of accounts: summaries with user counts, then all assigned emails
     @Transactional(readOnly = true)
     public List<AwsAccountResponse> getAllAwsAccounts() {
-        return awsAccountRepository.findAll().stream().map(this::mapToResponse).collect(Collectors.toList());
+        Map<Long, Set<String>> emails = groupEmails(awsAccountRepository.findAllAssignedUserEmails());
+        return awsAccountRepository.findAllAccountSummaries().stream().map(summary -> mapToResponse(summary, emails)).toList();
+    }
+
+    // keyset page plus the emails of its accounts, and the filtered COUNT only when asked for
+    @Transactional(readOnly = true)
+    public CursorPageResponse<AwsAccountResponse> getAwsAccounts(AwsAccountListRequest request) {
+        boolean sortByAlias = "alias".equals(request.getSortBy());
+        boolean descending = "desc".equalsIgnoreCase(request.getSortDir());
+        String afterAlias = null;
+        Long afterId = null;
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            String[] position = decodeCursor(request.getCursor(), sortByAlias);
+            afterId = Long.valueOf(position[0]);
+            afterAlias = sortByAlias ? position[1] : null;
+        }
+        int size = request.getSize();
+        AwsAccountListCriteria criteria = new AwsAccountListCriteria(request.getActive(), request.getAliasPrefix(), request.getAssignedUserId(),
+                sortByAlias, descending, afterAlias, afterId, size + 1);
+
+        // one extra row tells whether there is a next page
+        List<AwsAccountSummary> rows = awsAccountRepository.findAccountSummaries(criteria);
+        boolean hasNext = rows.size() > size;
+        List<AwsAccountSummary> page = hasNext ? rows.subList(0, size) : rows;
+
+        List<Long> ids = page.stream().map(AwsAccountSummary::getId).toList();
+        Map<Long, Set<String>> emails = ids.isEmpty() ? Map.of() : groupEmails(awsAccountRepository.findAssignedUserEmails(ids));
+        List<AwsAccountResponse> content = page.stream().map(summary -> mapToResponse(summary, emails)).toList();
+
+        String nextCursor = hasNext ? encodeCursor(page.getLast(), sortByAlias) : null;
+        Long total = Boolean.TRUE.equals(request.getIncludeTotal()) ? awsAccountRepository.countAccounts(criteria) : null;
+        return CursorPageResponse.<AwsAccountResponse>builder().content(content).size(content.size()).nextCursor(nextCursor).hasNext(hasNext).totalElements(total).build();
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> getAllAccountIds() {
+        return awsAccountRepository.findAllAccountIds();
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> getAccountIdsForUser(Long userId) {
+        return awsAccountRepository.findAccountIdsByAssignedUserId(userId);
     }
 
     @Transactional(readOnly = true)
@@ -87,8 +140,50 @@ public class AwsAccountService {
                 .createdAt(account.getCreatedAt()).updatedAt(account.getUpdateAt()).build();
     }
 
+    private AwsAccountResponse mapToResponse(AwsAccountSummary account, Map<Long, Set<String>> emails) {
+        return AwsAccountResponse.builder()
+                .id(account.getId())
+                .accountId(account.getAccountId())
+                .accountAlias(account.getAccountAlias())
+                .roleArn(account.getRoleArn())
+                .active(account.getActive())
+                .assignedUsersCount(Math.toIntExact(account.getAssignedUsersCount()))
+                .assignedUserEmails(emails.getOrDefault(account.getId(), Set.of()))
+                .createdAt(account.getCreatedAt()).updatedAt(account.getUpdatedAt()).build();
+    }
+
+    // opaque to clients: base64url of "<id>" or "<id>:<alias>"
+    private String encodeCursor(AwsAccountSummary last, boolean sortByAlias) {
+        String position = sortByAlias ? last.getId() + ":" + last.getAccountAlias() : String.valueOf(last.getId());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor, boolean sortByAlias) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split(":", 2);
+            Long.parseLong(parts[0]);
+            if (sortByAlias && parts.length < 2) {
+                throw new IllegalArgumentException("Cursor does not belong to an alias sorted listing");
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException included
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private Map<Long, Set<String>> groupEmails(List<AccountUserEmail> rows) {
+        Map<Long, Set<String>> emails = new HashMap<>();
+        for (AccountUserEmail row : rows) {
+            emails.computeIfAbsent(row.getAccountId(), id -> new HashSet<>()).add(row.getEmail());
+        }
+        return emails;
+    }
+
 
     //     Assign multiple AWS accounts to a single user
+    // set-based : the user's assignments are never loaded, each batch is one INSERT ... ON CONFLICT DO NOTHING
     @Transactional
     public BulkAccountAssignmentResponse assignMultipleAccountsToUser(
             BulkAccountAssignmentToUserRequest request) {
@@ -96,112 +191,37 @@ public class AwsAccountService {
         logger.info("Starting bulk assignment: {} accounts to user {}",
                 request.getAccountIds().size(), request.getUserId());
 
-        // Validate and fetch user
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "User not found with ID: " + request.getUserId()));
 
+        Map<Long, AwsAccountRef> accounts = findAccountRefs(request.getAccountIds());
+        Set<Long> inserted = new HashSet<>();
+        forEachBatch(accounts.keySet(), batch ->
+                inserted.addAll(awsAccountRepository.insertAssignments(user.getId(), batch)));
+
         List<AccountAssignmentResult> results = new ArrayList<>();
-        int successCount = 0;
-        int skipCount = 0;
-        int failCount = 0;
-
-        // Fetch all requested accounts in a single query (optimization)
-        Map<Long, AwsAccount> accountMap = awsAccountRepository
-                .findAllById(request.getAccountIds())
-                .stream()
-                .collect(Collectors.toMap(AwsAccount::getId, account -> account));
-
-        // Get currently assigned account IDs for duplicate checking
-        Set<Long> currentlyAssignedIds = user.getAssignedAccounts()
-                .stream()
-                .map(AwsAccount::getId)
-                .collect(Collectors.toSet());
-
-        // Process each account assignment
+        Set<Long> seen = new HashSet<>();
         for (Long accountId : request.getAccountIds()) {
-            try {
-                // Check if account exists
-                if (!accountMap.containsKey(accountId)) {
-                    results.add(createFailedResult(
-                            accountId,
-                            null,
-                            "Account not found"
-                    ));
-                    failCount++;
-                    continue;
-                }
-
-                AwsAccount account = accountMap.get(accountId);
-
-                // Check if account is active
-                if (!account.getActive()) {
-                    results.add(createFailedResult(
-                            accountId,
-                            account.getAccountAlias(),
-                            "Account is inactive"
-                    ));
-                    failCount++;
-                    continue;
-                }
-
-                // Check if already assigned
-                if (currentlyAssignedIds.contains(accountId)) {
-                    results.add(createSkippedResult(
-                            accountId,
-                            account.getAccountAlias(),
-                            "Account already assigned to user"
-                    ));
-                    skipCount++;
-                    continue;
-                }
-
-                // Add account to user's assigned accounts (Many-to-Many)
-                user.getAssignedAccounts().add(account);
-
-                results.add(createSuccessResult(
-                        accountId,
-                        account.getAccountAlias(),
-                        "Account assigned successfully"
-                ));
-                successCount++;
-
-            } catch (Exception e) {
-                logger.error("Failed to assign account {} to user {}: {}",
-                        accountId, request.getUserId(), e.getMessage());
-
-                String accountAlias = accountMap.containsKey(accountId)
-                        ? accountMap.get(accountId).getAccountAlias()
-                        : "Unknown";
-
-                results.add(createFailedResult(
-                        accountId,
-                        accountAlias,
-                        "Error: " + e.getMessage()
-                ));
-                failCount++;
+            AwsAccountRef account = accounts.get(accountId);
+            if (account == null) {
+                results.add(createFailedResult(accountId, null, "Account not found"));
+            } else if (!seen.add(accountId)) {
+                results.add(createSkippedResult(accountId, account.getAccountAlias(), "Duplicate account in request"));
+            } else if (!account.getActive()) {
+                results.add(createFailedResult(accountId, account.getAccountAlias(), "Account is inactive"));
+            } else if (inserted.contains(accountId)) {
+                results.add(createSuccessResult(accountId, account.getAccountAlias(), "Account assigned successfully"));
+            } else {
+                results.add(createSkippedResult(accountId, account.getAccountAlias(), "Account already assigned to user"));
             }
         }
 
-        // Save all changes in a single transaction
-        userRepository.save(user);
-
-        logger.info("Bulk assignment completed for user {}. Success: {}, Skipped: {}, Failed: {}",
-                request.getUserId(), successCount, skipCount, failCount);
-
-        return BulkAccountAssignmentResponse.builder()
-                .userId(user.getId())
-                .userEmail(user.getEmail())
-                .totalAccountsRequested(request.getAccountIds().size())
-                .successfulAssignments(successCount)
-                .skippedDuplicates(skipCount)
-                .failedAssignments(failCount)
-                .results(results)
-                .build();
+        return buildBulkResponse(user, request, results, inserted.size(), "assignment");
     }
 
 //     Remove multiple accounts from a user
-
+    // set-based : each batch is one DELETE ... WHERE account_id = ANY(?) RETURNING account_id
     @Transactional
     public BulkAccountAssignmentResponse removeMultipleAccountsFromUser(
             BulkAccountAssignmentToUserRequest request) {
@@ -213,69 +233,53 @@ public class AwsAccountService {
                 .orElseThrow(() -> new ResourceNotFoundException(
                         "User not found with ID: " + request.getUserId()));
 
-        List<AccountAssignmentResult> results = new ArrayList<>();
-        int successCount = 0;
-        int skipCount = 0;
-        int failCount = 0;
-
-        // Fetch all accounts
-        Map<Long, AwsAccount> accountMap = awsAccountRepository
-                .findAllById(request.getAccountIds())
-                .stream()
-                .collect(Collectors.toMap(AwsAccount::getId, account -> account));
+        Map<Long, AwsAccountRef> accounts = findAccountRefs(request.getAccountIds());
+        Set<Long> deleted = new HashSet<>();
+        forEachBatch(accounts.keySet(), batch ->
+                deleted.addAll(awsAccountRepository.deleteAssignments(user.getId(), batch)));
 
+        List<AccountAssignmentResult> results = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
         for (Long accountId : request.getAccountIds()) {
-            try {
-                if (!accountMap.containsKey(accountId)) {
-                    results.add(createFailedResult(accountId, null, "Account not found"));
-                    failCount++;
-                    continue;
-                }
-
-                AwsAccount account = accountMap.get(accountId);
-
-                // Remove from user's assigned accounts
-                boolean removed = user.getAssignedAccounts().remove(account);
-
-                if (removed) {
-                    results.add(createSuccessResult(
-                            accountId,
-                            account.getAccountAlias(),
-                            "Account removed successfully"
-                    ));
-                    successCount++;
-                } else {
-                    results.add(createSkippedResult(
-                            accountId,
-                            account.getAccountAlias(),
-                            "Account was not assigned to user"
-                    ));
-                    skipCount++;
-                }
-
-            } catch (Exception e) {
-                logger.error("Failed to remove account {} from user {}: {}",
-                        accountId, request.getUserId(), e.getMessage());
-
-                String accountAlias = accountMap.containsKey(accountId)
-                        ? accountMap.get(accountId).getAccountAlias()
-                        : "Unknown";
-
-                results.add(createFailedResult(accountId, accountAlias, "Error: " + e.getMessage()));
-                failCount++;
+            AwsAccountRef account = accounts.get(accountId);
+            if (account == null) {
+                results.add(createFailedResult(accountId, null, "Account not found"));
+            } else if (!seen.add(accountId)) {
+                results.add(createSkippedResult(accountId, account.getAccountAlias(), "Duplicate account in request"));
+            } else if (deleted.contains(accountId)) {
+                results.add(createSuccessResult(accountId, account.getAccountAlias(), "Account removed successfully"));
+            } else {
+                results.add(createSkippedResult(accountId, account.getAccountAlias(), "Account was not assigned to user"));
             }
         }
 
-        userRepository.save(user);
+        return buildBulkResponse(user, request, results, deleted.size(), "removal");
+    }
+
+    private Map<Long, AwsAccountRef> findAccountRefs(List<Long> accountIds) {
+        Map<Long, AwsAccountRef> accounts = new HashMap<>();
+        forEachBatch(new LinkedHashSet<>(accountIds), batch ->
+                awsAccountRepository.findAccountRefs(Arrays.asList(batch)).forEach(account -> accounts.put(account.getId(), account)));
+        return accounts;
+    }
+
+    private void forEachBatch(Collection<Long> ids, Consumer<Long[]> action) {
+        IdBatches.forEachBatch(ids, assignmentBatchSize, action);
+    }
+
+    private BulkAccountAssignmentResponse buildBulkResponse(User user, BulkAccountAssignmentToUserRequest request,
+                                                            List<AccountAssignmentResult> results, int changed, String operation) {
+        int failCount = (int) results.stream().filter(result -> !result.getSuccess()).count();
+        int skipCount = results.size() - failCount - changed;
 
-        logger.info("Bulk removal completed for user {}. Success: {}, Skipped: {}, Failed: {}",
-                request.getUserId(), successCount, skipCount, failCount);
+        logger.info("Bulk {} completed for user {}. Success: {}, Skipped: {}, Failed: {}",
+                operation, request.getUserId(), changed, skipCount, failCount);
 
         return BulkAccountAssignmentResponse.builder()
                 .userId(user.getId())
                 .userEmail(user.getEmail())
                 .totalAccountsRequested(request.getAccountIds().size())
-                .successfulAssignments(successCount)
+                .successfulAssignments(changed)
                 .skippedDuplicates(skipCount)
                 .failedAssignments(failCount)
                 .results(results)
@@ -9,6 +9,8 @@ import com.cloudkeeper.cloudbalance_backend.helper.snowflake.SnowflakeUtils;
 import com.cloudkeeper.cloudbalance_backend.repository.snowflake.SnowflakeRepository;
 import com.snowflake.snowpark_java.Row;
 import enums.Granularity;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -20,6 +22,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CostExplorerService {
     private final SnowflakeRepository snowflakeRepo;
+    private final ObservationRegistry observationRegistry;
 
     public CostReportResponseDTO getCostReport(CostReportRequestDTO request, List<String> accountIds) {
 
@@ -36,10 +39,12 @@ public class CostExplorerService {
         String groupSql = buildGroupWiseQuery(request, periodExpr, accountFilterSql);
 
         // run against Snowflake
-        List<Row> monthlyRows = snowflakeRepo.executeQuery(monthlySql);
-        List<Row> groupRows = snowflakeRepo.executeQuery(groupSql);
+        List<Row> monthlyRows = snowflakeRepo.executeQuery("cost_report.monthly", monthlySql);
+        List<Row> groupRows = snowflakeRepo.executeQuery("cost_report.group_wise", groupSql);
 
-        return mapToResponse(gran, monthlyRows, groupRows);
+        return Observation.createNotStarted("app.cost_report.mapping", observationRegistry)
+                .contextualName("cost_report mapping")
+                .observe(() -> mapToResponse(gran, monthlyRows, groupRows));
     }
 
     private String getAccountFilterSql(List<String> accountIds) {
@@ -0,0 +1,41 @@
+package com.cloudkeeper.cloudbalance_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Single-holder Redis lock (SET NX PX) used to elect one node for scheduled work.
+ * The lease expires on its own if the holder dies, release only deletes the caller's own lease.
+ */
+@Service
+@RequiredArgsConstructor
+public class DistributedLockService {
+
+    private static final String LOCK_PREFIX = "lock:";
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    // returns the lease token, or null when another node holds the lock
+    public String tryLock(String name, Duration lease) {
+        String token = UUID.randomUUID().toString();
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + name, token, lease);
+        return Boolean.TRUE.equals(acquired) ? token : null;
+    }
+
+    public void unlock(String name, String token) {
+        redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_PREFIX + name), token);
+    }
+}
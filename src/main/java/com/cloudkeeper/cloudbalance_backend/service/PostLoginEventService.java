@@ -0,0 +1,178 @@
+package com.cloudkeeper.cloudbalance_backend.service;
+
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Non-critical login side effects (lastLogin, token-version seed, audit line) queued in a Redis list
+ * and flushed in batches off the request thread.
+ * <p>
+ * A flush first moves a batch into a processing list, so a node crashing mid-flush leaves the batch
+ * to be replayed by the next flush. Failed batches are re-queued with an attempt counter and parked
+ * in a dead-letter list after {@code max-attempts}. Delivery is at-least-once, every handler is idempotent.
+ */
+@Service
+@RequiredArgsConstructor
+public class PostLoginEventService {
+
+    private static final String QUEUE_KEY = "queue:post-login";
+    private static final String PROCESSING_KEY = "queue:post-login:processing";
+    private static final String DEAD_LETTER_KEY = "queue:post-login:dead";
+    private static final String FLUSH_LOCK = "post-login:flush";
+
+    // moves up to ARGV[1] events from the queue head into the processing list
+    private static final RedisScript<List> CLAIM_SCRIPT = RedisScript.of("""
+            local items = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            if #items > 0 then
+                redis.call('LTRIM', KEYS[1], #items, -1)
+                redis.call('RPUSH', KEYS[2], unpack(items))
+            end
+            return items
+            """, List.class);
+
+    private static final Logger logger = LoggerFactory.getLogger(PostLoginEventService.class);
+    private static final Logger auditLogger = LoggerFactory.getLogger("audit.login");
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final UserRepository userRepository;
+    private final TokenVersionService tokenVersionService;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributedLockService distributedLockService;
+
+    @Value("${app.auth.post-login.batch-size:500}")
+    private int batchSize;
+    @Value("${app.auth.post-login.max-attempts:5}")
+    private int maxAttempts;
+
+    public void publish(Long userId, Integer tokenVersion, String ipAddress, String deviceName) {
+        PostLoginEvent event = new PostLoginEvent(userId, Objects.requireNonNullElse(tokenVersion, 0), Instant.now().toEpochMilli(), ipAddress, deviceName, 0);
+        try {
+            redisTemplate.opsForList().rightPush(QUEUE_KEY, event.encode());
+        } catch (Exception e) {
+            // the login itself already succeeded, losing its bookkeeping must not fail it
+            logger.warn("Could not enqueue post-login event for user {} : {}", userId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.post-login.flush-interval-ms:1000}")
+    public void flush() {
+        String lockToken = distributedLockService.tryLock(FLUSH_LOCK, Duration.ofSeconds(30));
+        if (lockToken == null) {
+            return;
+        }
+        try {
+            // replay a batch left behind by a crashed flush before claiming new work
+            List<String> batch = redisTemplate.opsForList().range(PROCESSING_KEY, 0, -1);
+            if (batch == null || batch.isEmpty()) {
+                batch = claimBatch();
+            }
+            if (!batch.isEmpty()) {
+                process(batch);
+            }
+        } catch (Exception e) {
+            logger.error("Post-login flush failed : {}", e.getMessage(), e);
+        } finally {
+            distributedLockService.unlock(FLUSH_LOCK, lockToken);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> claimBatch() {
+        List<String> items = redisTemplate.execute(CLAIM_SCRIPT, List.of(QUEUE_KEY, PROCESSING_KEY), String.valueOf(batchSize));
+        return items != null ? items : Collections.emptyList();
+    }
+
+    private void process(List<String> batch) {
+        List<PostLoginEvent> events = new ArrayList<>(batch.size());
+        for (String raw : batch) {
+            PostLoginEvent event = PostLoginEvent.decode(raw);
+            if (event == null) {
+                logger.warn("Dropping malformed post-login event : {}", raw);
+            } else {
+                events.add(event);
+            }
+        }
+
+        try {
+            applyLastLogins(events);
+            for (PostLoginEvent event : events) {
+                tokenVersionService.initUserTokenVersion(event.userId(), event.tokenVersion());
+                auditLogger.info("LOGIN userId={} ip={} device={} at={}",
+                        event.userId(), event.ipAddress(), event.deviceName(), Instant.ofEpochMilli(event.loginAtMillis()));
+            }
+            redisTemplate.delete(PROCESSING_KEY);
+            logger.debug("Flushed {} post-login events", events.size());
+        } catch (Exception e) {
+            logger.warn("Post-login batch of {} failed, re-queueing : {}", events.size(), e.getMessage());
+            requeue(events);
+        }
+    }
+
+    // one UPDATE per user in a single transaction, repeated logins of a user collapse to the latest
+    private void applyLastLogins(List<PostLoginEvent> events) {
+        Map<Long, Long> latestByUser = new HashMap<>();
+        for (PostLoginEvent event : events) {
+            latestByUser.merge(event.userId(), event.loginAtMillis(), Math::max);
+        }
+        transactionTemplate.executeWithoutResult(status -> latestByUser.forEach((userId, loginAt) ->
+                userRepository.updateLastLogin(userId,
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(loginAt), ZoneId.systemDefault()))));
+    }
+
+    private void requeue(List<PostLoginEvent> events) {
+        List<String> retry = new ArrayList<>();
+        List<String> dead = new ArrayList<>();
+        for (PostLoginEvent event : events) {
+            PostLoginEvent next = event.nextAttempt();
+            (next.attempt() >= maxAttempts ? dead : retry).add(next.encode());
+        }
+        if (!retry.isEmpty()) {
+            redisTemplate.opsForList().rightPushAll(QUEUE_KEY, retry);
+        }
+        if (!dead.isEmpty()) {
+            redisTemplate.opsForList().rightPushAll(DEAD_LETTER_KEY, dead);
+            logger.error("{} post-login events exceeded {} attempts, moved to {}", dead.size(), maxAttempts, DEAD_LETTER_KEY);
+        }
+        redisTemplate.delete(PROCESSING_KEY);
+    }
+
+    // attempt|userId|tokenVersion|loginAtMillis|ip|device, device last since user agents may contain anything
+    record PostLoginEvent(Long userId, Integer tokenVersion, long loginAtMillis, String ipAddress, String deviceName, int attempt) {
+
+        String encode() {
+            return attempt + "|" + userId + "|" + tokenVersion + "|" + loginAtMillis + "|"
+                    + Objects.toString(ipAddress, "") + "|" + Objects.toString(deviceName, "");
+        }
+
+        PostLoginEvent nextAttempt() {
+            return new PostLoginEvent(userId, tokenVersion, loginAtMillis, ipAddress, deviceName, attempt + 1);
+        }
+
+        static PostLoginEvent decode(String raw) {
+            String[] parts = raw.split("\\|", 6);
+            if (parts.length != 6) {
+                return null;
+            }
+            try {
+                return new PostLoginEvent(Long.parseLong(parts[1]), Integer.parseInt(parts[2]), Long.parseLong(parts[3]),
+                        parts[4], parts[5], Integer.parseInt(parts[0]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.cloudkeeper.cloudbalance_backend.service;
+
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Distributed token buckets for the login endpoints, one Redis hash per bucket refilled lazily by a
+ * Lua script. Denials are remembered locally until the bucket refills, so repeated attempts from a
+ * blocked IP or account are rejected without touching Redis, the database or the password encoder.
+ */
+@Service
+@RequiredArgsConstructor
+public class RateLimitService {
+
+    private static final String BUCKET_PREFIX = "ratelimit:login:";
+
+    // KEYS[1] bucket, ARGV capacity, refill tokens per second; returns {allowed, retryAfterMs}
+    private static final RedisScript<List> TOKEN_BUCKET_SCRIPT = RedisScript.of("""
+            local capacity, rate = tonumber(ARGV[1]), tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens, ts = tonumber(bucket[1]), tonumber(bucket[2])
+            if not tokens then
+                tokens, ts = capacity, now
+            end
+            tokens = math.min(capacity, tokens + (now - ts) * rate / 1000)
+            local allowed, retryAfter = 0, 0
+            if tokens >= 1 then
+                tokens = tokens - 1
+                allowed = 1
+            else
+                retryAfter = math.ceil((1 - tokens) * 1000 / rate)
+            end
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', now)
+            redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000)
+            return {allowed, retryAfter}
+            """, List.class);
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitService.class);
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Value("${app.security.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+    @Value("${app.security.rate-limit.ip.refill-per-minute:10}")
+    private double ipRefillPerMinute;
+    @Value("${app.security.rate-limit.email.capacity:5}")
+    private int emailCapacity;
+    @Value("${app.security.rate-limit.email.refill-per-minute:5}")
+    private double emailRefillPerMinute;
+    @Value("${app.security.rate-limit.global.capacity:500}")
+    private int globalCapacity;
+    @Value("${app.security.rate-limit.global.refill-per-second:200}")
+    private double globalRefillPerSecond;
+
+    // bucket key -> epoch millis until which it is known to be empty
+    private Cache<String, Long> blockedUntil;
+
+    @PostConstruct
+    void init() {
+        blockedUntil = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+    }
+
+    // all return 0 when allowed, otherwise the milliseconds until the next attempt may pass
+
+    public long tryConsumeGlobal() {
+        return tryConsume("global", globalCapacity, globalRefillPerSecond);
+    }
+
+    public long tryConsumeIp(String ipAddress) {
+        return tryConsume("ip:" + ipAddress, ipCapacity, ipRefillPerMinute / 60);
+    }
+
+    public long tryConsumeEmail(String email) {
+        return tryConsume("email:" + email.trim().toLowerCase(), emailCapacity, emailRefillPerMinute / 60);
+    }
+
+    private long tryConsume(String bucket, int capacity, double refillPerSecond) {
+        long now = System.currentTimeMillis();
+        Long until = blockedUntil.getIfPresent(bucket);
+        if (until != null) {
+            if (until > now) {
+                return until - now;
+            }
+            blockedUntil.invalidate(bucket);
+        }
+
+        try {
+            @SuppressWarnings("unchecked")
+            List<Long> result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(BUCKET_PREFIX + bucket),
+                    String.valueOf(capacity), String.valueOf(refillPerSecond));
+            if (result == null || result.get(0) == 1L) {
+                return 0;
+            }
+            long retryAfterMs = Math.max(1, result.get(1));
+            blockedUntil.put(bucket, now + retryAfterMs);
+            return retryAfterMs;
+        } catch (Exception e) {
+            // fail open, login stays available while Redis is unreachable
+            logger.warn("Rate limit check failed for {} : {}", bucket, e.getMessage());
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.cloudkeeper.cloudbalance_backend.service;
+
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Background purge of expired refresh tokens and of revoked ones past their retention.
+ * Runs on one node at a time (Redis lock) and deletes in keyset-paginated batches, each in its own
+ * short transaction, so row locks and WAL bursts stay small.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenPurgeService {
+
+    private static final String PURGE_LOCK = "refresh-token:purge";
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenPurgeService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final DistributedLockService distributedLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.maintenance.refresh-token-purge.batch-size:1000}")
+    private int batchSize;
+    @Value("${app.maintenance.refresh-token-purge.pause-ms:50}")
+    private long pauseMs;
+    @Value("${app.maintenance.refresh-token-purge.revoked-retention-hours:24}")
+    private long revokedRetentionHours;
+    // also bounds a single run, the loop stops at half the lease so it never outlives the lock
+    @Value("${app.maintenance.refresh-token-purge.lock-lease-seconds:600}")
+    private long lockLeaseSeconds;
+
+    private Counter purgedRows;
+    private Timer purgeTimer;
+
+    @PostConstruct
+    void init() {
+        purgedRows = Counter.builder("refresh_tokens.purge.rows").register(meterRegistry);
+        purgeTimer = Timer.builder("refresh_tokens.purge.duration").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${app.maintenance.refresh-token-purge.cron:0 */15 * * * *}")
+    public void purge() {
+        String lockToken = distributedLockService.tryLock(PURGE_LOCK, Duration.ofSeconds(lockLeaseSeconds));
+        if (lockToken == null) {
+            logger.debug("Refresh token purge running on another node");
+            return;
+        }
+        try {
+            purgeTimer.record(this::purgeInBatches);
+        } finally {
+            distributedLockService.unlock(PURGE_LOCK, lockToken);
+        }
+    }
+
+    private void purgeInBatches() {
+        Instant now = Instant.now();
+        Instant revokedBefore = now.minus(Duration.ofHours(revokedRetentionHours));
+        long deadline = System.nanoTime() + Duration.ofSeconds(lockLeaseSeconds / 2).toNanos();
+        long afterId = 0;
+        long total = 0;
+
+        while (System.nanoTime() < deadline) {
+            long cursor = afterId;
+            List<Long> deleted = transactionTemplate.execute(status ->
+                    refreshTokenRepository.deleteDeadTokensAfter(cursor, now, revokedBefore, batchSize));
+            if (deleted == null || deleted.isEmpty()) {
+                break;
+            }
+            total += deleted.size();
+            purgedRows.increment(deleted.size());
+            afterId = deleted.stream().mapToLong(Long::longValue).max().orElse(afterId);
+            if (deleted.size() < batchSize) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+        logger.info("Purged {} expired/revoked refresh tokens", total);
+    }
+
+    // yields between batches so vacuum and foreground writes are not starved
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -9,11 +9,15 @@ import com.cloudkeeper.cloudbalance_backend.repository.jpa.RefreshTokenRepositor
 import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
-import java.util.List;
+import java.util.HexFormat;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,39 +26,19 @@ import java.util.UUID;
 public class RefreshTokenService {
     private final RefreshTokenRepository refreshTokenRepository;
     private final UserRepository userRepository;
-    private final TokenBlackListService tokenBlackListService;
+    private final TokenVersionService tokenVersionService;
+    private final UserPrincipalCacheService userPrincipalCacheService;
     private final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
     @Value("${jwt.refresh-token-expiration}")
     private long refreshTokenExpireDurationMs;
 
+    // one upsert instead of findById + device lookup + save, reuses the device's active token when present
     @Transactional
     public RefreshToken createRefreshToken(Long userId, String deviceInfo, String ipAddress, String sessionId) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
-
-        // if refresh token already exists
-        Optional<RefreshToken> existingToken = refreshTokenRepository.findByUserAndDeviceInfoAndRevokedFalse(user, deviceInfo);
-
-        if (existingToken.isPresent()) {
-            // Reuse existing token for this device
-            RefreshToken token = existingToken.get();
-            token.setLastActivityTime(Instant.now());
-            token.setExpiryDate(Instant.now().plusMillis(refreshTokenExpireDurationMs));
-            return refreshTokenRepository.save(token);
-        }
-
-        // create new refresh token for this device/session
-        RefreshToken refreshToken = RefreshToken.builder()
-                .user(user)
-                .token(UUID.randomUUID().toString())
-                .expiryDate(Instant.now().plusMillis(refreshTokenExpireDurationMs))
-                .deviceInfo(deviceInfo)
-                .ipAddress(ipAddress)
-                .tokenVersion(user.getTokenVersion())
-                .lastActivityTime(Instant.now())
-                .revoked(false)
-                .build();
-
-        return refreshTokenRepository.save(refreshToken);
+        Instant now = Instant.now();
+        return refreshTokenRepository.upsertActiveToken(userId, UUID.randomUUID().toString(), deviceInfo,
+                        deviceFingerprint(deviceInfo), ipAddress, now.plusMillis(refreshTokenExpireDurationMs), now)
+                .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
     @Transactional(readOnly = true)
@@ -79,25 +63,20 @@ public class RefreshTokenService {
 
     @Transactional
     public void revokeAllUserTokens(User user) {
-        List<RefreshToken> activeTokens = refreshTokenRepository.findActiveTokensByUser(user);
-        activeTokens.forEach(token -> {
-            token.setRevoked(true);
-            tokenBlackListService.blacklistToken(token.getToken(), refreshTokenExpireDurationMs);
-        });
-
-        refreshTokenRepository.saveAll(activeTokens);
+        int revoked = refreshTokenRepository.revokeAllActiveByUserId(user.getId());
 
-        // increment token version to invalidate all jwt tokens
+        // increment token version to invalidate all jwt tokens, a single Redis write instead of one per token
         user.setTokenVersion(user.getTokenVersion() + 1);
         userRepository.save(user);
-        tokenBlackListService.setUserTokenVersion(user.getId(), user.getTokenVersion());
+        tokenVersionService.bumpUserTokenVersion(user.getId(), user.getTokenVersion());
+        userPrincipalCacheService.evict(user.getEmail());
 
-        logger.info("All tokens revoked for user : {}", user.getEmail());
+        logger.info("{} refresh tokens revoked for user : {}", revoked, user.getEmail());
     }
 
     @Transactional(readOnly = true)
     public Optional<RefreshToken> findLatestValidRefreshToken(Long userId){
-        Optional<RefreshToken> refreshToken = refreshTokenRepository.findTopByUserIdAndRevokedFalseOrderByCreatedAtDesc(userId);
+        Optional<RefreshToken> refreshToken = refreshTokenRepository.findFirstByUser_IdAndRevokedFalseOrderByCreatedAtDesc(userId);
 
         if(refreshToken.isEmpty()){
             logger.warn("No valid refresh token found for user: {}", userId);
@@ -107,32 +86,30 @@ public class RefreshTokenService {
         return refreshToken;
     }
 
+    // deferred activity bump, a single UPDATE instead of a load + full entity save on the request thread
+    @Async("refreshActivityExecutor")
     @Transactional
-    public void revokeRefreshTokenByDevice(Long userId, String deviceInfo) {
-        User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
+    public void touchLastActivityAsync(Long refreshTokenId, Instant lastActivityTime) {
+        refreshTokenRepository.updateLastActivityTime(refreshTokenId, lastActivityTime);
+    }
 
-        refreshTokenRepository.findByUserAndDeviceInfoAndRevokedFalse(user, deviceInfo).ifPresent(token -> {
+    @Transactional
+    public void revokeRefreshTokenByDevice(Long userId, String deviceInfo) {
+        refreshTokenRepository.findByUser_IdAndDeviceFingerprintAndRevokedFalse(userId, deviceFingerprint(deviceInfo)).ifPresent(token -> {
                     token.setRevoked(true);
             refreshTokenRepository.save(token);
             logger.info("Refresh token revoked for user: {} device: {}", userId, deviceInfo);
         });
     }
 
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
+    // fixed-width key for the (user_id, device_fingerprint) index, the raw User-Agent is kept for display only
+    static String deviceFingerprint(String deviceInfo) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(deviceInfo.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 
+}
@@ -6,7 +6,8 @@ import com.cloudkeeper.cloudbalance_backend.exception.MaxSessionsReachedExceptio
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
 import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
 import com.cloudkeeper.cloudbalance_backend.logging.annotation.Loggable;
-import com.cloudkeeper.cloudbalance_backend.repository.redis.UserSessionRedisRepository;
+import com.cloudkeeper.cloudbalance_backend.repository.redis.UserSessionRedisStore;
+import com.cloudkeeper.cloudbalance_backend.repository.redis.UserSessionRedisStore.AdmissionResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,7 +23,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class SessionManagementService {
 
-    private final UserSessionRedisRepository sessionRedisRepository;
+    private final UserSessionRedisStore sessionRedisStore;
     private final Logger logger = LoggerFactory.getLogger(SessionManagementService.class);
     private final RedisTemplate<String, Object> redisTemplate;
 
@@ -42,42 +43,8 @@ public class SessionManagementService {
         Instant now = Instant.now();
         String deviceName = extractDeviceName(deviceInfo);
 
-        logger.warn("maxCurrentSessions : {} and idleTimeOut : {}, and forceLogoutOldest : {}",
-                maxConcurrentSessions, idleTimeOut, forceLogoutOldest);
+        logger.info("Creating Redis session for user : {} on device: {}", user::getEmail, () -> deviceName);
 
-        logger.info("Creating Redis session for user : {} on device: {}", user.getEmail(), deviceName);
-
-        // Get all active sessions for this user (EXCLUDE current sessionId)
-        List<UserSessionRedis> activeSessions = getActiveUserSessions(user.getId());
-
-        logger.info("User {} currently has {} active sessions (max allowed: {}) : {}",
-                user.getEmail(), activeSessions.size(), maxConcurrentSessions, activeSessions.stream().map(UserSessionRedis::getSessionId).toList());
-
-        // Check concurrent session limit FIRST (BEFORE reactivating)
-        if (activeSessions.size() >= maxConcurrentSessions) {
-            logger.warn("Max sessions ({}) reached for user: {}", maxConcurrentSessions, user.getEmail());
-            if (forceLogoutOldest) {
-                // auto-logout oldest session
-                UserSessionRedis oldest = activeSessions.stream()
-                        .min(Comparator.comparing(UserSessionRedis::getLoginTime))
-                        .orElseThrow(() -> new IllegalStateException("No sessions found to remove"));
-
-                logger.info("🔄 Force logout enabled - removing oldest session: {}", oldest.getSessionId());
-
-                invalidateSession(oldest.getSessionId(), user.getId());
-            } else {
-                // Throw exception to prompt user
-                logger.error("❌ Session limit reached! User: {}, Active: {}, Max: {}",
-                        user.getEmail(), activeSessions.size(), maxConcurrentSessions);
-
-                throw new MaxSessionsReachedException(
-                        "Maximum " + maxConcurrentSessions + " device(s) allowed. " +
-                                "Please logout from another device or use force-login."
-                );
-            }
-        }
-
-        // Create new session (limit already checked above)
         String sessionId = generateSessionId();
         UserSessionRedis newSession = UserSessionRedis.builder()
                 .sessionId(sessionId)
@@ -92,11 +59,24 @@ public class SessionManagementService {
                 .ttl(idleTimeOut / 1000)
                 .build();
 
-        UserSessionRedis saved = sessionRedisRepository.save(newSession);
+        // limit check, oldest eviction and insert run as one script, parallel logins can not overshoot the limit
+        AdmissionResult admission = sessionRedisStore.admit(newSession, maxConcurrentSessions, forceLogoutOldest);
+
+        if (!admission.admitted()) {
+            logger.error("❌ Session limit reached! User: {}, Max: {}", user.getEmail(), maxConcurrentSessions);
+            throw new MaxSessionsReachedException(
+                    "Maximum " + maxConcurrentSessions + " device(s) allowed. " +
+                            "Please logout from another device or use force-login."
+            );
+        }
+
+        if (!admission.evictedSessionIds().isEmpty()) {
+            logger.info("🔄 Force logout enabled - removed oldest session(s): {}", admission.evictedSessionIds());
+        }
 
-        logger.info("New Redis session created: {} for user: {}", sessionId, user.getEmail());
+        logger.info("New Redis session created: {} for user: {}", () -> sessionId, user::getEmail);
 
-        return saved;
+        return newSession;
     }
 
     private String generateSessionId() {
@@ -105,14 +85,10 @@ public class SessionManagementService {
 
     @Transactional
     public void updateSessionActivity(String sessionId, Long userId) {
-        sessionRedisRepository.findBySessionId(sessionId).ifPresent(session -> {
-            if (session.getUserId().equals(userId) && session.getActive()) {
-                session.setLastActivityTime(Instant.now());
-                session.setTtl(idleTimeOut / 1000);
-                sessionRedisRepository.save(session);
-                logger.debug("Updated activity for session : {}", sessionId);
-            }
-        });
+        // ownership/active check, timestamp and TTL refresh in one script call
+        if (sessionRedisStore.touch(sessionId, userId, Instant.now(), idleTimeOut / 1000)) {
+            logger.debug("Updated activity for session : {}", sessionId);
+        }
     }
 
     // check if session is valid or not
@@ -125,7 +101,7 @@ public class SessionManagementService {
         }
 
         // Find session
-        Optional<UserSessionRedis> sessionOpt = sessionRedisRepository.findBySessionId(sessionId);
+        Optional<UserSessionRedis> sessionOpt = sessionRedisStore.findBySessionId(sessionId);
 
         // If session doesn't exist → invalid
         if (sessionOpt.isEmpty()) {
@@ -147,7 +123,7 @@ public class SessionManagementService {
             logger.info("Session expired due to inactivity : {}", sessionId);
             session.setActive(false);
             session.setTtl(60L);
-            sessionRedisRepository.save(session);
+            sessionRedisStore.save(session);
 
             return false;
         }
@@ -160,22 +136,22 @@ public class SessionManagementService {
     @Loggable
     @Transactional(readOnly = true)
     public Optional<UserSessionRedis> findActiveSessionById(String sessionId) {
-        return sessionRedisRepository.findBySessionId(sessionId).filter(UserSessionRedis::getActive);
+        return sessionRedisStore.findBySessionId(sessionId).filter(UserSessionRedis::getActive);
     }
 
     // get all active sessions for a user
     @Transactional(readOnly = true)
     public List<UserSessionRedis> getActiveUserSessions(Long userId) {
         try {
-            // Use Spring Data Redis Repository's built-in indexing
-            List<UserSessionRedis> allSessions = sessionRedisRepository.findByUserId(userId);
+            // sorted-set lookup plus one pipelined read of the session hashes
+            List<UserSessionRedis> allSessions = sessionRedisStore.findByUserId(userId);
 
             // Filter active sessions
             List<UserSessionRedis> activeSessions = allSessions.stream()
                     .filter(UserSessionRedis::getActive)
                     .collect(Collectors.toList());
 
-            logger.info("Retrieved {} active sessions for userId: {}", activeSessions.size(), userId);
+            logger.info("Retrieved {} active sessions for userId: {}", activeSessions::size, () -> userId);
             return activeSessions;
 
         } catch (Exception e) {
@@ -188,9 +164,9 @@ public class SessionManagementService {
     // deactivate specific session
     @Transactional
     public void invalidateSession(String sessionId, Long userId) {
-        sessionRedisRepository.findBySessionId(sessionId).ifPresent(session -> {
+        sessionRedisStore.findBySessionId(sessionId).ifPresent(session -> {
             if (session.getUserId().equals(userId)) {
-                sessionRedisRepository.delete(session);
+                sessionRedisStore.delete(session);
                 logger.info("Deleted session: {} for userId : {}", sessionId, userId);
             }
         });
@@ -198,8 +174,8 @@ public class SessionManagementService {
 
     @Transactional
     public void invalidateAllUserSessions(Long userId) {
-        List<UserSessionRedis> allSessions = sessionRedisRepository.findByUserId(userId);
-        sessionRedisRepository.deleteAll(allSessions);
+        List<UserSessionRedis> allSessions = sessionRedisStore.findByUserId(userId);
+        sessionRedisStore.deleteAll(allSessions);
         logger.info("Deleted all {} sessions for userId : {}", allSessions.size(), userId);
     }
 
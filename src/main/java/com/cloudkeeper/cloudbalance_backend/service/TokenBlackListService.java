@@ -1,73 +1,159 @@
 package com.cloudkeeper.cloudbalance_backend.service;
 
+import com.cloudkeeper.cloudbalance_backend.helper.cache.BloomFilter;
 import com.cloudkeeper.cloudbalance_backend.logging.Logger;
 import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
-public class TokenBlackListService {
+public class TokenBlackListService implements MessageListener, SubscriptionListener {
     private final RedisTemplate<String, String> redisTemplate;
-    private static final String BLACKLIST_PREFIX = "blacklist:token:";
-    private static final String USER_TOKEN_VERSION_PREFIX = "user:token:version:";
+    private final RedisMessageListenerContainer listenerContainer;
+    // keys hold the hex SHA-256 of the token instead of the raw JWT
+    private static final String BLACKLIST_PREFIX = "blacklist:sha256:";
+    // raw-token keys written before the digest keys, still honoured until the last of them expires
+    private static final String LEGACY_BLACKLIST_PREFIX = "blacklist:token:";
+    private static final String BLACKLIST_CHANNEL = "blacklist:token:added";
+    private static final HexFormat HEX = HexFormat.of();
     private static final Logger logger = LoggerFactory.getLogger(TokenBlackListService.class);
 
+    @Value("${app.security.blacklist.bloom.expected-insertions:100000}")
+    private long expectedInsertions;
+    @Value("${app.security.blacklist.bloom.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter bloomFilter;
+    // filter being rebuilt, receives concurrent additions so none are lost on swap
+    private volatile BloomFilter rebuildTarget;
+    // false until the first rebuild succeeds, Redis is consulted for every token until then
+    private volatile boolean filterReady = false;
+    // cleared by the first rebuild that finds no legacy key, none are written any more
+    private volatile boolean legacyKeysPresent = true;
+    private final AtomicBoolean subscribedOnce = new AtomicBoolean();
+
+    @PostConstruct
+    void init() {
+        bloomFilter = new BloomFilter(expectedInsertions, falsePositiveRate);
+        listenerContainer.addMessageListener(this, new ChannelTopic(BLACKLIST_CHANNEL));
+        rebuildBloomFilter();
+    }
+
     public void blacklistToken(String token, long expirationTimeMs) {
-        String key = BLACKLIST_PREFIX + token;
-        redisTemplate.opsForValue().set(key, "revoked", Duration.ofMillis(expirationTimeMs));
-        logger.info("Token blacklisted : {}", token.substring(0, 10) + "...");
+        byte[] digest = sha256(token);
+        String hex = HEX.formatHex(digest);
+        redisTemplate.opsForValue().set(BLACKLIST_PREFIX + hex, "revoked", Duration.ofMillis(expirationTimeMs));
+        addToFilter(digest);
+        redisTemplate.convertAndSend(BLACKLIST_CHANNEL, hex);
+        logger.info("Token blacklisted : {}", () -> hex.substring(0, 12) + "...");
     }
 
     public boolean isTokenBlacklisted(String token) {
-        String key = BLACKLIST_PREFIX + token;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+        byte[] digest = sha256(token);
+        if (filterReady && !bloomFilter.mightContain(digest)) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(BLACKLIST_PREFIX + HEX.formatHex(digest)))) {
+            return true;
+        }
+        return legacyKeysPresent && Boolean.TRUE.equals(redisTemplate.hasKey(LEGACY_BLACKLIST_PREFIX + token));
     }
 
-    public void incrementUserTokenVersion(Long userId) {
-        String key = USER_TOKEN_VERSION_PREFIX + userId;
-        redisTemplate.opsForValue().increment(key);
-        logger.info("Token version incremented for user: {}", userId);
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            addToFilter(HEX.parseHex(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring malformed blacklist message : {}", e.getMessage());
+        }
     }
 
-    public Integer getUserTokenVersion(Long userId) {
-        String key = USER_TOKEN_VERSION_PREFIX + userId;
-        String version = redisTemplate.opsForValue().get(key);
-        return version != null ? Integer.parseInt(version) : 0;
+    // messages published while the subscription was down are lost, so every re-subscription (after a
+    // reconnect) sends checks to Redis until the filter has been rebuilt from the keys
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        if (!subscribedOnce.compareAndSet(false, true)) {
+            filterReady = false;
+            logger.warn("Blacklist channel re-subscribed, rebuilding bloom filter");
+            // off the subscription thread, which must not block on Redis commands
+            Thread.ofVirtual().name("blacklist-bloom-rebuild").start(this::rebuildBloomFilter);
+        }
     }
 
-    public void setUserTokenVersion(Long userId, Integer version) {
-        String key = USER_TOKEN_VERSION_PREFIX + userId;
-        redisTemplate.opsForValue().set(key, version.toString());
+    // periodic rebuild drops digests whose Redis keys have expired
+    @Scheduled(fixedDelayString = "${app.security.blacklist.bloom.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.security.blacklist.bloom.rebuild-interval-ms:600000}")
+    public synchronized void rebuildBloomFilter() {
+        BloomFilter fresh = new BloomFilter(expectedInsertions, falsePositiveRate);
+        rebuildTarget = fresh;
+        try {
+            long count = scanInto(fresh, BLACKLIST_PREFIX, false);
+            long legacy = legacyKeysPresent ? scanInto(fresh, LEGACY_BLACKLIST_PREFIX, true) : 0;
+            bloomFilter = fresh;
+            filterReady = true;
+            if (legacy == 0 && legacyKeysPresent) {
+                legacyKeysPresent = false;
+                logger.info("No legacy blacklist keys left, no longer checking them");
+            }
+            logger.info("Blacklist bloom filter rebuilt with {} entries ({} legacy)", count + legacy, legacy);
+        } catch (Exception e) {
+            logger.error("Blacklist bloom filter rebuild failed : {}", e.getMessage(), e);
+        } finally {
+            rebuildTarget = null;
+        }
     }
 
-}
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
+    // legacy keys carry the raw token, the filter holds its digest either way
+    private long scanInto(BloomFilter filter, String prefix, boolean rawToken) {
+        long count = 0;
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(1000).build())) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                String suffix = key.substring(prefix.length());
+                try {
+                    filter.put(rawToken ? sha256(suffix) : HEX.parseHex(suffix));
+                    count++;
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping malformed blacklist key : {}", key);
+                }
+            }
+        }
+        return count;
+    }
 
+    private void addToFilter(byte[] digest) {
+        BloomFilter target = rebuildTarget;
+        if (target != null) {
+            target.put(digest);
+        }
+        bloomFilter.put(digest);
+    }
 
+    private static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
 
+}
@@ -0,0 +1,148 @@
+package com.cloudkeeper.cloudbalance_backend.service;
+
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Per-user token version used for stateless revocation. Access tokens carry the version they were
+ * issued with; bumping the version revokes every older token of that user in O(1).
+ * Versions are cached per node and kept fresh by Redis pub/sub change messages.
+ */
+@Service
+@RequiredArgsConstructor
+public class TokenVersionService implements MessageListener {
+
+    private static final String USER_TOKEN_VERSION_PREFIX = "user:token:version:";
+    private static final String VERSION_CHANNEL = "user:token:version:changed";
+    private static final Logger logger = LoggerFactory.getLogger(TokenVersionService.class);
+
+    // raises the stored version to ARGV[1] unless it is already higher, returns the resulting version
+    private static final RedisScript<Long> BUMP_SCRIPT = RedisScript.of("""
+            local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local proposed = tonumber(ARGV[1])
+            if proposed > current then
+                redis.call('SET', KEYS[1], ARGV[1])
+                return proposed
+            end
+            return current
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${app.security.token-version.local-max-size:200000}")
+    private long localMaxSize;
+    // upper bound on staleness if a change message is ever missed
+    @Value("${app.security.token-version.local-ttl-seconds:300}")
+    private long localTtlSeconds;
+
+    private Cache<Long, Integer> localVersions;
+
+    @PostConstruct
+    void init() {
+        localVersions = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(VERSION_CHANNEL));
+    }
+
+    // a token is current unless the user's version was bumped after it was issued. Without a fallback
+    // the token is rejected while Redis cannot answer
+    public boolean isTokenVersionCurrent(Long userId, Integer tokenVersion) {
+        return isTokenVersionCurrent(userId, tokenVersion, null);
+    }
+
+    // sourceVersion reads the version from the database, it is only asked when Redis fails
+    public boolean isTokenVersionCurrent(Long userId, Integer tokenVersion, IntSupplier sourceVersion) {
+        if (userId == null) {
+            return false;
+        }
+        int claimed = tokenVersion != null ? tokenVersion : 0;
+        return claimed >= getUserTokenVersion(userId, sourceVersion);
+    }
+
+    public int getUserTokenVersion(Long userId, IntSupplier sourceVersion) {
+        Integer cached = localVersions.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            String version = redisTemplate.opsForValue().get(USER_TOKEN_VERSION_PREFIX + userId);
+            int current = version != null ? Integer.parseInt(version) : 0;
+            return localVersions.asMap().merge(userId, current, Math::max);
+        } catch (Exception e) {
+            // never fall back to 0, that would accept revoked tokens for as long as Redis is down. The
+            // source version is not cached, the next request retries Redis
+            logger.warn("Token version lookup failed for user {} : {}", userId, e.getMessage());
+            if (sourceVersion == null) {
+                return Integer.MAX_VALUE;
+            }
+            return sourceVersion.getAsInt();
+        }
+    }
+
+    // seed the version on login if Redis lost it, never lowers an existing value
+    public void initUserTokenVersion(Long userId, Integer version) {
+        redisTemplate.opsForValue().setIfAbsent(USER_TOKEN_VERSION_PREFIX + userId, String.valueOf(version));
+    }
+
+    // publish a new version, every node rejects older tokens from now on. Inside a transaction this
+    // waits for the commit, a rolled back bump must not leave Redis ahead of the database
+    public void bumpUserTokenVersion(Long userId, Integer newVersion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpNow(userId, newVersion);
+                }
+            });
+        } else {
+            bumpNow(userId, newVersion);
+        }
+    }
+
+    private void bumpNow(Long userId, Integer newVersion) {
+        Long stored = redisTemplate.execute(BUMP_SCRIPT, List.of(USER_TOKEN_VERSION_PREFIX + userId), String.valueOf(newVersion));
+        int version = stored != null ? Math.max(stored.intValue(), newVersion) : newVersion;
+        localVersions.asMap().merge(userId, version, Math::max);
+        redisTemplate.convertAndSend(VERSION_CHANNEL, userId + ":" + version);
+        logger.info("Token version bumped to {} for user : {}", version, userId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator <= 0) {
+            logger.warn("Ignoring malformed token version message : {}", body);
+            return;
+        }
+        try {
+            Long userId = Long.parseLong(body.substring(0, separator));
+            Integer version = Integer.parseInt(body.substring(separator + 1));
+            localVersions.asMap().merge(userId, version, Math::max);
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed token version message : {}", body);
+        }
+    }
+}
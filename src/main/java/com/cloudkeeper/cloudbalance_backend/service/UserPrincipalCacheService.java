@@ -0,0 +1,182 @@
+package com.cloudkeeper.cloudbalance_backend.service;
+
+import com.cloudkeeper.cloudbalance_backend.config.UserPrincipal;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Two-level cache for authenticated principals: a bounded per-node cache in front of Redis.
+ * Entries never hold the password hash. Invalidations are broadcast over Redis pub/sub so every
+ * node drops its local copy when a user's role, active flag or token version changes. Each eviction
+ * bumps a per-email counter in Redis, and a load only stores its result if the counter is unchanged.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserPrincipalCacheService implements MessageListener {
+
+    private static final String KEY_PREFIX = "user:principal:";
+    // per-email invalidation counter, bumped by every eviction
+    private static final String GENERATION_PREFIX = "user:principal:gen:";
+    private static final String INVALIDATION_CHANNEL = "user:principal:invalidate";
+    private static final String FORMAT_VERSION = "1";
+    private static final char SEPARATOR = '|';
+
+    // stores the principal only if no eviction happened since the loader read the counter (ARGV[1]),
+    // a load that read the database before an update committed must not write its stale copy back
+    private static final RedisScript<Long> STORE_SCRIPT = RedisScript.of("""
+            if (redis.call('GET', KEYS[1]) or '0') ~= ARGV[1] then
+                return 0
+            end
+            redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3])
+            return 1
+            """, Long.class);
+    private static final RedisScript<Long> EVICT_SCRIPT = RedisScript.of("""
+            local generation = redis.call('INCR', KEYS[1])
+            redis.call('EXPIRE', KEYS[1], ARGV[1])
+            redis.call('DEL', KEYS[2])
+            return generation
+            """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final Logger logger = LoggerFactory.getLogger(UserPrincipalCacheService.class);
+
+    @Value("${app.cache.user-principal.local-max-size:10000}")
+    private long localMaxSize;
+    @Value("${app.cache.user-principal.local-ttl-seconds:60}")
+    private long localTtlSeconds;
+    @Value("${app.cache.user-principal.redis-ttl-seconds:900}")
+    private long redisTtlSeconds;
+
+    private Cache<String, UserPrincipal> localCache;
+
+    @PostConstruct
+    void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(localTtlSeconds))
+                .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    // local cache -> redis -> loader; concurrent misses for the same email share a single load
+    public UserPrincipal get(String email, Function<String, UserPrincipal> loader) {
+        UserPrincipal cached = localCache.getIfPresent(email);
+        if (cached != null) {
+            return cached;
+        }
+        return localCache.get(email, key -> loadFromRedisOrSource(key, loader));
+    }
+
+    // drop the entry everywhere once the surrounding transaction (if any) has committed
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(email);
+                }
+            });
+        } else {
+            evictNow(email);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String email = new String(message.getBody(), StandardCharsets.UTF_8);
+        localCache.invalidate(email);
+        logger.debug("Evicted cached principal on invalidation message : {}", email);
+    }
+
+    private void evictNow(String email) {
+        localCache.invalidate(email);
+        try {
+            redisTemplate.execute(EVICT_SCRIPT, List.of(GENERATION_PREFIX + email, KEY_PREFIX + email), String.valueOf(redisTtlSeconds));
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, email);
+        } catch (Exception e) {
+            logger.warn("Failed to broadcast principal invalidation for {} : {}", email, e.getMessage());
+        }
+    }
+
+    private UserPrincipal loadFromRedisOrSource(String email, Function<String, UserPrincipal> loader) {
+        String generation = null;
+        try {
+            String encoded = redisTemplate.opsForValue().get(KEY_PREFIX + email);
+            if (encoded != null) {
+                UserPrincipal decoded = decode(encoded);
+                if (decoded != null) {
+                    return decoded;
+                }
+            }
+            // read before the database, so an eviction during the load is noticed on store
+            String current = redisTemplate.opsForValue().get(GENERATION_PREFIX + email);
+            generation = current != null ? current : "0";
+        } catch (Exception e) {
+            logger.warn("Redis principal lookup failed for {} : {}", email, e.getMessage());
+        }
+
+        UserPrincipal principal = loader.apply(email).withoutPassword();
+        if (generation == null) {
+            // Redis failed above, an eviction could not be detected
+            return principal;
+        }
+
+        try {
+            Long stored = redisTemplate.execute(STORE_SCRIPT, List.of(GENERATION_PREFIX + email, KEY_PREFIX + email),
+                    generation, encode(principal), String.valueOf(redisTtlSeconds));
+            if (stored == null || stored == 0) {
+                logger.debug("Principal of {} was invalidated during the load, not stored in Redis", email);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to store principal in Redis for {} : {}", email, e.getMessage());
+        }
+        return principal;
+    }
+
+    // compact form : version|id|active|role|tokenVersion|email (email last so it may contain the separator)
+    private String encode(UserPrincipal principal) {
+        String role = principal.getAuthorities().iterator().next().getAuthority();
+        return FORMAT_VERSION + SEPARATOR + principal.getId() + SEPARATOR + (Boolean.TRUE.equals(principal.getActive()) ? '1' : '0')
+                + SEPARATOR + role + SEPARATOR + principal.getTokenVersion() + SEPARATOR + principal.getEmail();
+    }
+
+    private UserPrincipal decode(String encoded) {
+        String[] parts = encoded.split("\\|", 6);
+        if (parts.length != 6 || !FORMAT_VERSION.equals(parts[0])) {
+            return null;
+        }
+        return new UserPrincipal(
+                Long.parseLong(parts[1]),
+                parts[5],
+                null,
+                "1".equals(parts[2]),
+                Integer.parseInt(parts[4]),
+                Set.of(new SimpleGrantedAuthority(parts[3]))
+        );
+    }
+}
@@ -27,6 +27,7 @@ import java.util.UUID;
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserPrincipalCacheService userPrincipalCacheService;
     private final Logger logger = LoggerFactory.getLogger(UserService.class);
 
     @Transactional(readOnly = true)
@@ -95,16 +96,16 @@ public class UserService {
         }
 
         User updateUser = userRepository.save(user);
+        userPrincipalCacheService.evict(updateUser.getEmail());
 
         return mapToResponse(updateUser);
     }
 
     @Transactional
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("User not found with id : " + id);
-        }
-        userRepository.deleteById(id);
+        User user = userRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("User not found with id : " + id));
+        userRepository.delete(user);
+        userPrincipalCacheService.evict(user.getEmail());
         logger.info("Deleted user with id : {}", id);
     }
 
@@ -120,6 +121,7 @@ public class UserService {
             user.setActive(false);
         }
         User savedUser = userRepository.save(user);
+        userPrincipalCacheService.evict(savedUser.getEmail());
         logger.info("Deactivated user with id : {}", userId);
         return mapToResponse(savedUser);
     }
@@ -130,6 +132,7 @@ public class UserService {
             user.setActive(true);
         }
         User savedUser = userRepository.save(user);
+        userPrincipalCacheService.evict(savedUser.getEmail());
         logger.info("Activated user with id : {}", userId);
         return mapToResponse(savedUser);
     }
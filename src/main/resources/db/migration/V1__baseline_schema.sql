@@ -0,0 +1,50 @@
+-- Schema as previously generated by Hibernate. Existing databases are baselined at this version
+-- (spring.flyway.baseline-on-migrate), so this script only runs on empty databases.
+
+CREATE TABLE IF NOT EXISTS users
+(
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    first_name    VARCHAR(25)  NOT NULL,
+    last_name     VARCHAR(25),
+    email         VARCHAR(50)  NOT NULL UNIQUE,
+    password      VARCHAR(255) NOT NULL,
+    role          VARCHAR(255) NOT NULL CHECK (role IN ('ADMIN', 'READ_ONLY', 'CUSTOMER')),
+    active        BOOLEAN      NOT NULL,
+    last_login    TIMESTAMP(6),
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6),
+    token_version INTEGER      NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS aws_accounts
+(
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id          VARCHAR(255) NOT NULL UNIQUE,
+    account_alias       VARCHAR(255) NOT NULL,
+    role_arn            VARCHAR(255),
+    external_account_id VARCHAR(255),
+    active              BOOLEAN      NOT NULL,
+    created_at          TIMESTAMP(6),
+    update_at           TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS user_account_assignments
+(
+    user_id    BIGINT NOT NULL REFERENCES users (id),
+    account_id BIGINT NOT NULL REFERENCES aws_accounts (id),
+    PRIMARY KEY (user_id, account_id)
+);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens
+(
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id            BIGINT                      NOT NULL REFERENCES users (id),
+    token              VARCHAR(255)                NOT NULL UNIQUE,
+    expiry_date        TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    device_info        VARCHAR(255)                NOT NULL,
+    ip_address         VARCHAR(255)                NOT NULL,
+    token_version      INTEGER                     NOT NULL,
+    last_activity_time TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    revoked            BOOLEAN                     NOT NULL,
+    created_at         TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
@@ -0,0 +1,28 @@
+-- Fixed-width SHA-256 of the User-Agent replaces the raw text comparison on device_info
+ALTER TABLE refresh_tokens ADD COLUMN device_fingerprint CHAR(64);
+
+UPDATE refresh_tokens
+SET device_fingerprint = encode(sha256(convert_to(device_info, 'UTF8')), 'hex');
+
+ALTER TABLE refresh_tokens ALTER COLUMN device_fingerprint SET NOT NULL;
+
+-- keep only the newest active token per user/device before enforcing uniqueness
+UPDATE refresh_tokens rt
+SET revoked = true
+WHERE rt.revoked = false
+  AND EXISTS (SELECT 1
+              FROM refresh_tokens newer
+              WHERE newer.user_id = rt.user_id
+                AND newer.device_fingerprint = rt.device_fingerprint
+                AND newer.revoked = false
+                AND (newer.created_at, newer.id) > (rt.created_at, rt.id));
+
+-- conflict target of the rotation upsert, one active token per user and device
+CREATE UNIQUE INDEX uq_refresh_tokens_user_device_active
+    ON refresh_tokens (user_id, device_fingerprint)
+    WHERE revoked = false;
+
+-- latest active token of a user (auto-refresh)
+CREATE INDEX idx_refresh_tokens_user_active_created
+    ON refresh_tokens (user_id, created_at DESC)
+    WHERE revoked = false;
@@ -0,0 +1,15 @@
+-- keyset listing sorted by alias (id breaks ties); id order is served by the primary key
+CREATE INDEX idx_aws_accounts_alias_id
+    ON aws_accounts (account_alias, id);
+
+-- active filter combined with either sort order
+CREATE INDEX idx_aws_accounts_active_id
+    ON aws_accounts (active, id);
+
+-- case-insensitive alias prefix filter, LOWER(account_alias) LIKE 'prefix%'
+CREATE INDEX idx_aws_accounts_alias_lower_prefix
+    ON aws_accounts (lower(account_alias) text_pattern_ops);
+
+-- assignments by account: user counts and emails of a page, the primary key only serves user_id lookups
+CREATE INDEX idx_user_account_assignments_account
+    ON user_account_assignments (account_id, user_id);
@@ -0,0 +1,18 @@
+-- pooled sequences (allocationSize 50) replace IDENTITY so Hibernate can batch inserts; one nextval reserves
+-- the 50 ids ending at the returned value. The nextval default keeps native inserts (refresh token upsert)
+-- working, and each sequence restarts 100 above the current maximum id.
+
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE users_id_seq INCREMENT BY 50 OWNED BY users.id;
+SELECT setval('users_id_seq', COALESCE(MAX(id), 0) + 100, false) FROM users;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_id_seq');
+
+ALTER TABLE aws_accounts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE aws_accounts_id_seq INCREMENT BY 50 OWNED BY aws_accounts.id;
+SELECT setval('aws_accounts_id_seq', COALESCE(MAX(id), 0) + 100, false) FROM aws_accounts;
+ALTER TABLE aws_accounts ALTER COLUMN id SET DEFAULT nextval('aws_accounts_id_seq');
+
+ALTER TABLE refresh_tokens ALTER COLUMN id DROP IDENTITY IF EXISTS;
+CREATE SEQUENCE refresh_tokens_id_seq INCREMENT BY 50 OWNED BY refresh_tokens.id;
+SELECT setval('refresh_tokens_id_seq', COALESCE(MAX(id), 0) + 100, false) FROM refresh_tokens;
+ALTER TABLE refresh_tokens ALTER COLUMN id SET DEFAULT nextval('refresh_tokens_id_seq');
@@ -0,0 +1,269 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.dto.request.AccountAssignmentMatrixRequest;
+import com.cloudkeeper.cloudbalance_backend.dto.response.AssignmentJobResponse;
+import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
+import com.cloudkeeper.cloudbalance_backend.entity.UserRole;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.AwsAccountRepository;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
+import com.cloudkeeper.cloudbalance_backend.repository.redis.AssignmentJobRedisStore;
+import com.cloudkeeper.cloudbalance_backend.service.AccountAssignmentService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// validation, chunking and job states of matrix requests. The set-based matrix statements are PostgreSQL
+// only, so the repository answers them from an in-memory set of pairs and delegates everything else to H2
+@JpaStatisticsTest
+class AccountAssignmentMatrixTest {
+
+    private static final int CUSTOMERS = 12;
+    private static final int ACCOUNTS = 9;
+    private static final int LOOKUP_BATCH = 5;
+
+    @Autowired
+    private AwsAccountRepository awsAccountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Long> customers = new ArrayList<>();
+    private final List<Long> activeAccounts = new ArrayList<>();
+    private Long admin;
+    private Long inactiveAccount;
+    private final InMemoryJobStore store = new InMemoryJobStore();
+    private final QueueingExecutor executor = new QueueingExecutor();
+    // written pairs as "user:account", and the chunks that wrote them
+    private final Set<String> pairs = new HashSet<>();
+    private final List<Integer> chunkSizes = new ArrayList<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(userRepository.save(JpaFixtures.user("customer" + i, UserRole.CUSTOMER)).getId());
+        }
+        admin = userRepository.save(JpaFixtures.user("admin", UserRole.ADMIN)).getId();
+        JpaFixtures.saveAccounts(awsAccountRepository, ACCOUNTS).forEach(account -> activeAccounts.add(account.getId()));
+        inactiveAccount = awsAccountRepository.save(AwsAccount.builder()
+                .accountId("999999999999").accountAlias("retired").active(false).build()).getId();
+        statistics = JpaFixtures.flushAndCount(entityManager);
+    }
+
+    @Test
+    void assignReportsUnknownNonCustomersAndInactiveAccounts() {
+        List<Long> userIds = new ArrayList<>(customers);
+        userIds.addAll(List.of(admin, -1L, customers.getFirst()));
+        List<Long> accountIds = new ArrayList<>(activeAccounts);
+        accountIds.addAll(List.of(inactiveAccount, -2L));
+
+        AssignmentJobResponse job = service(5000, this::insertPairs).submitMatrix(
+                request(userIds, accountIds, AccountAssignmentMatrixRequest.Operation.ASSIGN, true));
+
+        assertEquals("ASSIGN", job.getOperation());
+        assertEquals(AssignmentJobResponse.Status.QUEUED, job.getStatus());
+        assertEquals(List.of(admin, -1L), job.getInvalidUserIds());
+        assertEquals(List.of(inactiveAccount, -2L), job.getInvalidAccountIds());
+        assertEquals((long) CUSTOMERS * ACCOUNTS, job.getTotalPairs());
+        assertEquals(AssignmentJobResponse.Status.QUEUED, store.jobs.get(job.getJobId()).getStatus());
+        assertEquals(1, executor.queued.size());
+        assertTrue(pairs.isEmpty());
+    }
+
+    @Test
+    void removeAcceptsAnyExistingUserAndInactiveAccounts() {
+        List<Long> userIds = new ArrayList<>(customers);
+        userIds.addAll(List.of(admin, -1L));
+        List<Long> accountIds = new ArrayList<>(activeAccounts);
+        accountIds.addAll(List.of(inactiveAccount, -2L));
+
+        AssignmentJobResponse job = service(5000, this::insertPairs).submitMatrix(
+                request(userIds, accountIds, AccountAssignmentMatrixRequest.Operation.REMOVE, true));
+
+        assertEquals("REMOVE", job.getOperation());
+        assertEquals(List.of(-1L), job.getInvalidUserIds());
+        assertEquals(List.of(-2L), job.getInvalidAccountIds());
+        assertEquals((long) (CUSTOMERS + 1) * (ACCOUNTS + 1), job.getTotalPairs());
+    }
+
+    @Test
+    void lookupsAreBatched() {
+        // 15 user ids and 11 account ids in batches of 5 : three user lookups and three account lookups
+        List<Long> userIds = new ArrayList<>(customers);
+        userIds.addAll(List.of(admin, -1L, -3L));
+        List<Long> accountIds = new ArrayList<>(activeAccounts);
+        accountIds.addAll(List.of(inactiveAccount, -2L));
+
+        AssignmentJobResponse job = service(5000, this::insertPairs).submitMatrix(
+                request(userIds, accountIds, AccountAssignmentMatrixRequest.Operation.ASSIGN, true));
+
+        assertEquals(List.of(admin, -1L, -3L), job.getInvalidUserIds());
+        assertEquals(6, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void synchronousJobWritesEveryPairInChunksAndCompletes() {
+        pairs.add(customers.getFirst() + ":" + activeAccounts.getFirst());
+
+        // 20 pairs per chunk and 9 accounts : 2 users x 9 accounts per chunk, 6 chunks for 12 users
+        AssignmentJobResponse job = service(20, this::insertPairs).submitMatrix(
+                request(customers, activeAccounts, AccountAssignmentMatrixRequest.Operation.ASSIGN, false));
+
+        assertEquals(AssignmentJobResponse.Status.COMPLETED, job.getStatus());
+        assertEquals(108, job.getProcessedPairs());
+        assertEquals(107, job.getChangedPairs());
+        assertEquals(108, pairs.size());
+        assertEquals(Collections.nCopies(6, 18), chunkSizes);
+        assertTrue(executor.queued.isEmpty());
+
+        // RUNNING with nothing done, one update per chunk, then the final state
+        assertEquals(8, store.updates.size());
+        assertEquals("RUNNING 0 0", store.updates.getFirst());
+        assertEquals("RUNNING 18 17", store.updates.get(1));
+        assertEquals("RUNNING 108 107", store.updates.get(6));
+        assertEquals("COMPLETED 108 107", store.updates.getLast());
+    }
+
+    @Test
+    void failingChunkStopsTheJobAsFailed() {
+        AssignmentJobResponse job = service(20, (users, accounts) -> {
+            if (chunkSizes.size() == 2) {
+                throw new IllegalStateException("connection reset");
+            }
+            return insertPairs(users, accounts);
+        }).submitMatrix(request(customers, activeAccounts, AccountAssignmentMatrixRequest.Operation.ASSIGN, false));
+
+        // the two committed chunks stay
+        assertEquals(AssignmentJobResponse.Status.FAILED, job.getStatus());
+        assertEquals("connection reset", job.getError());
+        assertEquals(36, job.getProcessedPairs());
+        assertEquals(36, pairs.size());
+        assertEquals("FAILED 36 36", store.updates.getLast());
+    }
+
+    @Test
+    void redisFailureWhenStartingEndsAsFailedInsteadOfQueued() {
+        AssignmentJobResponse job = service(5000, this::insertPairs).submitMatrix(
+                request(customers, activeAccounts, AccountAssignmentMatrixRequest.Operation.ASSIGN, true));
+        store.failNextUpdate = true;
+
+        assertDoesNotThrow(() -> executor.queued.getFirst().run());
+
+        assertEquals(AssignmentJobResponse.Status.FAILED, store.jobs.get(job.getJobId()).getStatus());
+        assertEquals("FAILED 0 0", store.updates.getLast());
+        assertTrue(pairs.isEmpty());
+    }
+
+    private AccountAssignmentService service(int chunkPairs, BiFunction<Long[], Long[], Integer> insertMatrix) {
+        AccountAssignmentService service = new AccountAssignmentService(matrixRepository(insertMatrix), userRepository,
+                store, new TransactionTemplate(transactionManager), executor);
+        ReflectionTestUtils.setField(service, "chunkPairs", chunkPairs);
+        ReflectionTestUtils.setField(service, "syncMaxPairs", 10000L);
+        ReflectionTestUtils.setField(service, "jobTtlHours", 24L);
+        ReflectionTestUtils.setField(service, "lookupBatchSize", LOOKUP_BATCH);
+        return service;
+    }
+
+    // the H2 repository, except that insertAssignmentMatrix goes to the given function
+    private AwsAccountRepository matrixRepository(BiFunction<Long[], Long[], Integer> insertMatrix) {
+        return (AwsAccountRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{AwsAccountRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("insertAssignmentMatrix")) {
+                        return insertMatrix.apply((Long[]) args[0], (Long[]) args[1]);
+                    }
+                    try {
+                        return method.invoke(awsAccountRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private Integer insertPairs(Long[] users, Long[] accounts) {
+        chunkSizes.add(users.length * accounts.length);
+        int inserted = 0;
+        for (Long user : users) {
+            for (Long account : accounts) {
+                inserted += pairs.add(user + ":" + account) ? 1 : 0;
+            }
+        }
+        return inserted;
+    }
+
+    private static AccountAssignmentMatrixRequest request(List<Long> userIds, List<Long> accountIds,
+                                                          AccountAssignmentMatrixRequest.Operation operation, boolean async) {
+        return AccountAssignmentMatrixRequest.builder()
+                .userIds(userIds).accountIds(accountIds).operation(operation).async(async).build();
+    }
+
+    // jobs in a map, progress updates recorded as "STATUS processed changed"
+    private static class InMemoryJobStore extends AssignmentJobRedisStore {
+
+        private final Map<String, AssignmentJobResponse> jobs = new HashMap<>();
+        private final List<String> updates = new ArrayList<>();
+        private boolean failNextUpdate;
+
+        InMemoryJobStore() {
+            super(null);
+        }
+
+        @Override
+        public void save(AssignmentJobResponse job, Duration ttl) {
+            jobs.put(job.getJobId(), job.toBuilder().build());
+        }
+
+        @Override
+        public void updateProgress(String jobId, AssignmentJobResponse.Status status, long processedPairs, long changedPairs,
+                                   String error, Duration ttl) {
+            if (failNextUpdate) {
+                failNextUpdate = false;
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+            AssignmentJobResponse job = jobs.get(jobId);
+            job.setStatus(status);
+            job.setProcessedPairs(processedPairs);
+            job.setChangedPairs(changedPairs);
+            job.setError(error);
+            updates.add(status + " " + processedPairs + " " + changedPairs);
+        }
+
+        @Override
+        public Optional<AssignmentJobResponse> findByJobId(String jobId) {
+            return Optional.ofNullable(jobs.get(jobId));
+        }
+
+        @Override
+        public void delete(String jobId) {
+            jobs.remove(jobId);
+        }
+    }
+
+    // keeps background jobs until the test runs them
+    private static class QueueingExecutor extends ThreadPoolTaskExecutor {
+
+        private final List<Runnable> queued = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable task) {
+            queued.add(task);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.dto.request.AwsAccountListRequest;
+import com.cloudkeeper.cloudbalance_backend.dto.response.AwsAccountResponse;
+import com.cloudkeeper.cloudbalance_backend.dto.response.CursorPageResponse;
+import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
+import com.cloudkeeper.cloudbalance_backend.entity.User;
+import com.cloudkeeper.cloudbalance_backend.entity.UserRole;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.AwsAccountRepository;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.UserRepository;
+import com.cloudkeeper.cloudbalance_backend.service.AwsAccountService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// the account listing must cost a fixed number of statements, not one users load per account
+@JpaStatisticsTest
+class AwsAccountQueryCountTest {
+
+    private static final int ACCOUNTS = 40;
+
+    @Autowired
+    private AwsAccountRepository awsAccountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private AwsAccountService awsAccountService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        List<AwsAccount> accounts = JpaFixtures.saveAccounts(awsAccountRepository, ACCOUNTS);
+        for (int u = 0; u < 3; u++) {
+            User user = JpaFixtures.user("user" + u, UserRole.CUSTOMER);
+            // every third account is left unassigned
+            for (int i = 0; i < ACCOUNTS; i++) {
+                if (i % 3 != 0) {
+                    user.getAssignedAccounts().add(accounts.get(i));
+                }
+            }
+            userRepository.save(user);
+        }
+        awsAccountService = new AwsAccountService(awsAccountRepository, userRepository);
+        statistics = JpaFixtures.flushAndCount(entityManager);
+    }
+
+    @Test
+    void listingAllAccountsUsesTwoStatements() {
+        List<AwsAccountResponse> accounts = awsAccountService.getAllAwsAccounts();
+
+        assertEquals(ACCOUNTS, accounts.size());
+        AwsAccountResponse assigned = accounts.get(1);
+        assertEquals(3, assigned.getAssignedUsersCount());
+        assertEquals(Set.of("user0@example.com", "user1@example.com", "user2@example.com"), assigned.getAssignedUserEmails());
+        assertEquals(0, accounts.get(0).getAssignedUsersCount());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void keysetPagesUseTwoStatementsAndFollowTheCursor() {
+        AwsAccountListRequest request = AwsAccountListRequest.builder().size(15).build();
+        CursorPageResponse<AwsAccountResponse> first = awsAccountService.getAwsAccounts(request);
+
+        assertEquals(15, first.getContent().size());
+        assertTrue(first.getHasNext());
+        assertNull(first.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        request.setCursor(first.getNextCursor());
+        CursorPageResponse<AwsAccountResponse> second = awsAccountService.getAwsAccounts(request);
+        assertEquals(first.getContent().getLast().getId() + 1, second.getContent().getFirst().getId());
+    }
+
+    @Test
+    void filtersAndTotalAreApplied() {
+        AwsAccountListRequest request = AwsAccountListRequest.builder()
+                .aliasPrefix("Account-1").sortBy("alias").sortDir("desc").includeTotal(true).build();
+        CursorPageResponse<AwsAccountResponse> page = awsAccountService.getAwsAccounts(request);
+
+        // account-1 and account-10 .. account-19
+        assertEquals(11, page.getTotalElements());
+        assertEquals("account-19", page.getContent().getFirst().getAccountAlias());
+        assertFalse(page.getHasNext());
+        assertEquals(3, statistics.getPrepareStatementCount());
+
+        Long userId = userRepository.findByEmail("user0@example.com").orElseThrow().getId();
+        request = AwsAccountListRequest.builder().assignedUserId(userId).size(100).build();
+        assertTrue(awsAccountService.getAwsAccounts(request).getContent().stream().allMatch(a -> a.getAssignedUsersCount() == 3));
+    }
+
+    @Test
+    void accountIdsAreReadWithoutEntities() {
+        assertEquals(ACCOUNTS, awsAccountService.getAllAccountIds().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+}
@@ -0,0 +1,72 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.helper.batch.IdBatches;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdBatchesTest {
+
+    @Test
+    void batchesKeepOrderAndDropNulls() {
+        List<Long> ids = new ArrayList<>(LongStream.rangeClosed(1, 7).boxed().toList());
+        ids.add(3, null);
+        List<Long[]> batches = new ArrayList<>();
+        IdBatches.forEachBatch(ids, 3, batches::add);
+
+        assertEquals(3, batches.size());
+        assertArrayEquals(new Long[]{1L, 2L, 3L}, batches.get(0));
+        assertArrayEquals(new Long[]{4L, 5L, 6L}, batches.get(1));
+        assertArrayEquals(new Long[]{7L}, batches.get(2));
+
+        IdBatches.forEachBatch(List.of(), 3, batch -> fail("no batch expected for no ids"));
+        assertThrows(IllegalArgumentException.class, () -> IdBatches.forEachBatch(ids, 0, batch -> { }));
+    }
+
+    @Test
+    void matrixChunksCoverEveryPairOnceWithinTheBudget() {
+        // accounts fitting in one chunk, more accounts than the budget, uneven remainders, single rows
+        int[][] shapes = {{10, 10, 25}, {3, 17, 5}, {7, 1, 3}, {1, 9, 4}, {13, 11, 12}, {5, 5, 1}, {4, 6, 1000}};
+        for (int[] shape : shapes) {
+            Long[] users = ids(shape[0], 1000);
+            Long[] accounts = ids(shape[1], 5000);
+            int maxPairs = shape[2];
+            Set<String> seen = new HashSet<>();
+            IdBatches.forEachMatrixChunk(users, accounts, maxPairs, (userChunk, accountChunk) -> {
+                assertTrue(userChunk.length > 0 && accountChunk.length > 0);
+                assertTrue(userChunk.length * accountChunk.length <= maxPairs,
+                        Arrays.toString(shape) + " chunk of " + userChunk.length + " x " + accountChunk.length);
+                for (Long user : userChunk) {
+                    for (Long account : accountChunk) {
+                        assertTrue(seen.add(user + ":" + account), "pair written twice : " + user + ":" + account);
+                    }
+                }
+            });
+            assertEquals(shape[0] * shape[1], seen.size(), Arrays.toString(shape));
+        }
+    }
+
+    @Test
+    void matrixChunksUseTheWholeBudgetWhenAccountsFit() {
+        List<int[]> chunks = new ArrayList<>();
+        IdBatches.forEachMatrixChunk(ids(10, 1), ids(4, 100), 10, (u, a) -> chunks.add(new int[]{u.length, a.length}));
+
+        // two users x four accounts per chunk, 8 pairs of a budget of 10
+        assertEquals(5, chunks.size());
+        chunks.forEach(chunk -> assertArrayEquals(new int[]{2, 4}, chunk));
+    }
+
+    @Test
+    void emptyMatrixRunsNothingAndBadBudgetIsRejected() {
+        IdBatches.forEachMatrixChunk(new Long[0], ids(3, 1), 10, (u, a) -> fail("no chunk expected"));
+        IdBatches.forEachMatrixChunk(ids(3, 1), new Long[0], 10, (u, a) -> fail("no chunk expected"));
+        assertThrows(IllegalArgumentException.class, () -> IdBatches.forEachMatrixChunk(ids(1, 1), ids(1, 1), 0, (u, a) -> { }));
+    }
+
+    private static Long[] ids(int count, long first) {
+        return LongStream.range(first, first + count).boxed().toArray(Long[]::new);
+    }
+}
@@ -0,0 +1,43 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.entity.AwsAccount;
+import com.cloudkeeper.cloudbalance_backend.entity.User;
+import com.cloudkeeper.cloudbalance_backend.entity.UserRole;
+import com.cloudkeeper.cloudbalance_backend.repository.jpa.AwsAccountRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// seed data shared by the @JpaStatisticsTest classes
+final class JpaFixtures {
+
+    private JpaFixtures() {
+    }
+
+    // active accounts "account-0" .. with 12-digit account ids, in id order
+    static List<AwsAccount> saveAccounts(AwsAccountRepository awsAccountRepository, int count) {
+        List<AwsAccount> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accounts.add(awsAccountRepository.save(AwsAccount.builder()
+                    .accountId(String.format("%012d", i)).accountAlias("account-" + i).active(true).build()));
+        }
+        return accounts;
+    }
+
+    // not saved, so callers can add assignments first
+    static User user(String name, UserRole role) {
+        return User.builder().firstName(name).email(name + "@example.com").password("secret").role(role).build();
+    }
+
+    // writes the seed data, empties the persistence context and starts counting from zero
+    static Statistics flushAndCount(EntityManager entityManager) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
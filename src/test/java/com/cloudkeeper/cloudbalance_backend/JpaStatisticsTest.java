@@ -0,0 +1,18 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+
+import java.lang.annotation.*;
+
+// JPA slice on H2 with the schema generated from the entities and Hibernate statistics on, so tests can
+// count the statements a service call costs
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@interface JpaStatisticsTest {
+}
@@ -0,0 +1,62 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevel;
+import com.cloudkeeper.cloudbalance_backend.logging.LogLevelRegistry;
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLevelRegistryTest {
+
+    @AfterEach
+    void reset() {
+        LogLevelRegistry.setLevel("test.registry", null);
+        LogLevelRegistry.setLevel("test.registry.service", null);
+        LogLevelRegistry.setRootLevel(LogLevel.INFO);
+    }
+
+    @Test
+    void mostSpecificPrefixWins() {
+        Logger serviceLogger = LoggerFactory.getLogger("test.registry.service.Billing");
+        Logger otherLogger = LoggerFactory.getLogger("test.registry.web.Controller");
+
+        LogLevelRegistry.setLevel("test.registry", LogLevel.WARN);
+        LogLevelRegistry.setLevel("test.registry.service", LogLevel.DEBUG);
+
+        assertTrue(serviceLogger.isDebugEnabled());
+        assertFalse(otherLogger.isEnabled(LogLevel.INFO));
+        assertTrue(otherLogger.isEnabled(LogLevel.WARN));
+    }
+
+    @Test
+    void changesReachExistingLoggersAndResetFallsBackToParent() {
+        Logger logger = LoggerFactory.getLogger("test.registry.service.Sessions");
+        assertFalse(logger.isDebugEnabled());
+
+        LogLevelRegistry.setLevel("test.registry.service", LogLevel.TRACE);
+        assertTrue(logger.isEnabled(LogLevel.TRACE));
+
+        LogLevelRegistry.setLevel("test.registry.service", null);
+        LogLevelRegistry.setRootLevel(LogLevel.ERROR);
+        assertFalse(logger.isEnabled(LogLevel.WARN));
+        assertEquals(LogLevel.ERROR, LogLevelRegistry.getEffectiveLevel("test.registry.service.Sessions"));
+    }
+
+    @Test
+    void suppliersAreNotInvokedWhenDisabled() {
+        Logger logger = LoggerFactory.getLogger("test.registry.service.Lazy");
+        AtomicInteger calls = new AtomicInteger();
+
+        logger.debug("value {}", () -> calls.incrementAndGet());
+        assertEquals(0, calls.get());
+
+        LogLevelRegistry.setLevel("test.registry.service", LogLevel.DEBUG);
+        logger.debug("value {}", () -> calls.incrementAndGet());
+        assertEquals(1, calls.get());
+    }
+}
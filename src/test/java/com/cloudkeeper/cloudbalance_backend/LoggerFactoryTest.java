@@ -0,0 +1,17 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.logging.Logger;
+import com.cloudkeeper.cloudbalance_backend.logging.LoggerFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggerFactoryTest {
+
+    // named loggers such as "audit.login" must not be resolved as class names
+    @Test
+    void loggerNamesNeedNotBeClasses() {
+        Logger audit = assertDoesNotThrow(() -> LoggerFactory.getLogger("audit.login"));
+        assertSame(audit, LoggerFactory.getLogger("audit.login"));
+    }
+}
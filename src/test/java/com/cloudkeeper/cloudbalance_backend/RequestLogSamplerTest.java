@@ -0,0 +1,53 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.logging.sampling.RequestLogSampler;
+import com.cloudkeeper.cloudbalance_backend.logging.sampling.RequestLogSampler.Decision;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestLogSamplerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+
+    @Test
+    void logsOneInRateSuccessfulRequestsPerEndpoint() {
+        RequestLogSampler sampler = new RequestLogSampler();
+        sampler.setDefaultRate(10);
+
+        int logged = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.decide("AccountController.getAll", false, FAST).isLogged()) {
+                logged++;
+            }
+        }
+        assertEquals(10, logged);
+        // other endpoints keep their own counter
+        assertEquals(Decision.SAMPLED, sampler.decide("UserController.getAll", false, FAST));
+    }
+
+    @Test
+    void errorsAndSlowRequestsAreAlwaysLogged() {
+        RequestLogSampler sampler = new RequestLogSampler();
+        sampler.setDefaultRate(0);
+        sampler.setSlowThresholdMillis(200);
+
+        assertEquals(Decision.SKIP, sampler.decide("AccountController.getAll", false, FAST));
+        assertEquals(Decision.ERROR, sampler.decide("AccountController.getAll", true, FAST));
+        assertEquals(Decision.SLOW, sampler.decide("AccountController.getAll", false, TimeUnit.MILLISECONDS.toNanos(250)));
+    }
+
+    @Test
+    void endpointRateOverridesDefault() {
+        RequestLogSampler sampler = new RequestLogSampler();
+        sampler.setDefaultRate(1);
+        sampler.setEndpointRates(Map.of("CostExplorerController.getCostReport", 0));
+
+        assertEquals(Decision.SKIP, sampler.decide("CostExplorerController.getCostReport", false, FAST));
+        assertEquals(Decision.SAMPLED, sampler.decide("AccountController.getAll", false, FAST));
+        assertEquals(0, sampler.rateOf("CostExplorerController.getCostReport"));
+    }
+}
@@ -0,0 +1,129 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.entity.User;
+import com.cloudkeeper.cloudbalance_backend.entity.UserSessionRedis;
+import com.cloudkeeper.cloudbalance_backend.exception.MaxSessionsReachedException;
+import com.cloudkeeper.cloudbalance_backend.repository.redis.UserSessionRedisStore;
+import com.cloudkeeper.cloudbalance_backend.service.SessionManagementService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// fires simultaneous logins for one user against a local Redis, skipped when none is reachable
+class SessionAdmissionConcurrencyTest {
+
+    private static final int MAX_SESSIONS = 3;
+    private static final int PARALLEL_LOGINS = 32;
+    private static final long USER_ID = 990_000_001L;
+
+    private LettuceConnectionFactory connectionFactory;
+    private UserSessionRedisStore store;
+
+    @BeforeEach
+    void setUp() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("test.redis.host", "localhost"), Integer.getInteger("test.redis.port", 6379));
+        connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        try {
+            redisTemplate.hasKey("connection:test");
+        } catch (Exception e) {
+            connectionFactory.destroy();
+            assumeTrue(false, "Redis not reachable : " + e.getMessage());
+        }
+        store = new UserSessionRedisStore(redisTemplate);
+        cleanUp();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            cleanUp();
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void testParallelLoginsNeverExceedLimit() throws Exception {
+        SessionManagementService service = sessionService(false);
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<UserSessionRedis> created = fireLogins(service, rejected);
+
+        assertEquals(MAX_SESSIONS, created.size());
+        assertEquals(PARALLEL_LOGINS - MAX_SESSIONS, rejected.get());
+        assertEquals(MAX_SESSIONS, service.getActiveUserSessions(USER_ID).size());
+    }
+
+    @Test
+    void testParallelLoginsEvictOldest() throws Exception {
+        SessionManagementService service = sessionService(true);
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<UserSessionRedis> created = fireLogins(service, rejected);
+
+        assertEquals(PARALLEL_LOGINS, created.size());
+        assertEquals(0, rejected.get());
+        assertEquals(MAX_SESSIONS, service.getActiveUserSessions(USER_ID).size());
+    }
+
+    private List<UserSessionRedis> fireLogins(SessionManagementService service, AtomicInteger rejected) throws Exception {
+        User user = new User();
+        user.setId(USER_ID);
+        user.setEmail("concurrency-test@cloudbalance.com");
+
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_LOGINS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<UserSessionRedis>> futures = new ArrayList<>();
+        for (int i = 0; i < PARALLEL_LOGINS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return service.createSession(user, "JUnit", "127.0.0.1");
+                } catch (MaxSessionsReachedException e) {
+                    rejected.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        start.countDown();
+
+        List<UserSessionRedis> created = new ArrayList<>();
+        for (Future<UserSessionRedis> future : futures) {
+            UserSessionRedis session = future.get(10, TimeUnit.SECONDS);
+            if (session != null) {
+                created.add(session);
+            }
+        }
+        executor.shutdown();
+        return created;
+    }
+
+    private SessionManagementService sessionService(boolean forceLogoutOldest) {
+        SessionManagementService service = new SessionManagementService(store, null);
+        ReflectionTestUtils.setField(service, "maxConcurrentSessions", MAX_SESSIONS);
+        ReflectionTestUtils.setField(service, "idleTimeOut", 60_000L);
+        ReflectionTestUtils.setField(service, "forceLogoutOldest", forceLogoutOldest);
+        return service;
+    }
+
+    private void cleanUp() {
+        store.deleteAll(store.findByUserId(USER_ID));
+    }
+}
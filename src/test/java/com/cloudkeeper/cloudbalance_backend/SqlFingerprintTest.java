@@ -0,0 +1,36 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.repository.snowflake.SqlFingerprint;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlFingerprintTest {
+
+    @Test
+    void valuesAreReplacedAndListsCollapsed() {
+        String first = SqlFingerprint.of("SELECT service AS group_key FROM AWS_COST_USAGE_FACT "
+                + "WHERE usage_date BETWEEN '2024-01-01' AND '2024-03-31' AND account_id IN ('123', '456') LIMIT 10");
+        String second = SqlFingerprint.of("SELECT service AS group_key   FROM AWS_COST_USAGE_FACT\n"
+                + "WHERE usage_date BETWEEN '2025-06-01' AND '2025-06-30' AND account_id IN ('789') LIMIT 50");
+
+        assertEquals("SELECT service AS group_key FROM AWS_COST_USAGE_FACT "
+                + "WHERE usage_date BETWEEN ? AND ? AND account_id IN (?) LIMIT ?", first);
+        assertEquals(first, second);
+    }
+
+    @Test
+    void groupByAndGranularityKeepTheirOwnFingerprint() {
+        String monthly = SqlFingerprint.of("SELECT TO_VARCHAR(DATE_TRUNC('month', usage_date), 'MM/YYYY') AS period, "
+                + "ROUND(SUM(cost), 2) AS cost FROM AWS_COST_USAGE_FACT GROUP BY service");
+        String daily = SqlFingerprint.of("SELECT TO_VARCHAR(usage_date, 'YYYY-MM-DD') AS period, "
+                + "ROUND(SUM(cost), 2) AS cost FROM AWS_COST_USAGE_FACT GROUP BY service");
+        String byRegion = SqlFingerprint.of("SELECT TO_VARCHAR(usage_date, 'YYYY-MM-DD') AS period, "
+                + "ROUND(SUM(cost), 2) AS cost FROM AWS_COST_USAGE_FACT GROUP BY region");
+
+        assertTrue(monthly.contains("DATE_TRUNC('month', usage_date), 'MM/YYYY'"));
+        assertTrue(daily.contains("ROUND(SUM(cost), 2)"));
+        assertNotEquals(monthly, daily);
+        assertNotEquals(daily, byRegion);
+    }
+}
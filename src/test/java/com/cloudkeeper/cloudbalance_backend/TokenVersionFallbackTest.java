@@ -0,0 +1,74 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.service.TokenVersionService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// with Redis down a revoked token must still be rejected, the version then comes from the database
+class TokenVersionFallbackTest {
+
+    private static final long USER_ID = 42L;
+
+    private final AtomicInteger redisCalls = new AtomicInteger();
+    private TokenVersionService tokenVersionService;
+
+    @BeforeEach
+    void setUp() {
+        RedisTemplate<String, String> redisDown = new RedisTemplate<>() {
+            @Override
+            public ValueOperations<String, String> opsForValue() {
+                redisCalls.incrementAndGet();
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+        };
+        tokenVersionService = new TokenVersionService(redisDown, null);
+        ReflectionTestUtils.setField(tokenVersionService, "localVersions", Caffeine.newBuilder().<Long, Integer>build());
+    }
+
+    @Test
+    void revokedTokenIsRejectedAgainstTheDatabaseVersion() {
+        AtomicInteger sourceReads = new AtomicInteger();
+
+        assertFalse(tokenVersionService.isTokenVersionCurrent(USER_ID, 2, () -> {
+            sourceReads.incrementAndGet();
+            return 3;
+        }));
+        assertTrue(tokenVersionService.isTokenVersionCurrent(USER_ID, 3, () -> {
+            sourceReads.incrementAndGet();
+            return 3;
+        }));
+        // a token without a version claim counts as version 0
+        assertFalse(tokenVersionService.isTokenVersionCurrent(USER_ID, null, () -> 1));
+        assertEquals(2, sourceReads.get());
+        // the fallback is not cached, every request retries Redis first
+        assertEquals(3, redisCalls.get());
+    }
+
+    @Test
+    void tokenIsRejectedWithoutAFallback() {
+        assertFalse(tokenVersionService.isTokenVersionCurrent(USER_ID, 0));
+        assertFalse(tokenVersionService.isTokenVersionCurrent(USER_ID, 100));
+    }
+
+    @Test
+    void cachedVersionIsUsedBeforeRedisOrTheDatabase() {
+        tokenVersionService.onMessage(new DefaultMessage(
+                "user:token:version:changed".getBytes(StandardCharsets.UTF_8),
+                (USER_ID + ":5").getBytes(StandardCharsets.UTF_8)), null);
+
+        assertFalse(tokenVersionService.isTokenVersionCurrent(USER_ID, 4, () -> fail("database must not be read")));
+        assertTrue(tokenVersionService.isTokenVersionCurrent(USER_ID, 5, () -> fail("database must not be read")));
+        assertEquals(0, redisCalls.get());
+    }
+}
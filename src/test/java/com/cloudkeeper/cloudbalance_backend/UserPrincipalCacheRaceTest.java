@@ -0,0 +1,113 @@
+package com.cloudkeeper.cloudbalance_backend;
+
+import com.cloudkeeper.cloudbalance_backend.config.UserPrincipal;
+import com.cloudkeeper.cloudbalance_backend.service.UserPrincipalCacheService;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// a load that read the database before an update committed must not put its stale principal into Redis,
+// runs two cache instances (two nodes) against a local Redis, skipped when none is reachable
+class UserPrincipalCacheRaceTest {
+
+    private static final String EMAIL = "principal-race-test@cloudbalance.com";
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("test.redis.host", "localhost"), Integer.getInteger("test.redis.port", 6379));
+        connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+        try {
+            redisTemplate.hasKey("connection:test");
+        } catch (Exception e) {
+            connectionFactory.destroy();
+            redisTemplate = null;
+            assumeTrue(false, "Redis not reachable : " + e.getMessage());
+        }
+        cleanUp();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (redisTemplate != null) {
+            cleanUp();
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    void evictionDuringLoadKeepsStalePrincipalOutOfRedis() {
+        UserPrincipalCacheService nodeA = cacheService();
+        UserPrincipalCacheService nodeB = cacheService();
+
+        // node A reads the still active user, then the deactivation commits on node B before A stores it
+        UserPrincipal loadedByA = nodeA.get(EMAIL, email -> {
+            UserPrincipal stale = principal(true, 1);
+            nodeB.evict(email);
+            return stale;
+        });
+        assertTrue(loadedByA.getActive());
+        assertFalse(redisTemplate.hasKey("user:principal:" + EMAIL));
+
+        AtomicInteger loads = new AtomicInteger();
+        UserPrincipal fresh = cacheService().get(EMAIL, email -> {
+            loads.incrementAndGet();
+            return principal(false, 2);
+        });
+        assertEquals(1, loads.get());
+        assertFalse(fresh.getActive());
+        assertEquals(2, fresh.getTokenVersion());
+    }
+
+    @Test
+    void loadWithoutEvictionIsSharedThroughRedis() {
+        cacheService().get(EMAIL, email -> principal(true, 1));
+
+        UserPrincipal shared = cacheService().get(EMAIL, email -> fail("must be served from Redis"));
+        assertTrue(shared.getActive());
+        assertEquals(1, shared.getTokenVersion());
+        assertNull(shared.getPassword());
+
+        // after an eviction the next load stores again
+        cacheService().evict(EMAIL);
+        assertFalse(redisTemplate.hasKey("user:principal:" + EMAIL));
+        cacheService().get(EMAIL, email -> principal(false, 2));
+        assertFalse(cacheService().get(EMAIL, email -> fail("must be served from Redis")).getActive());
+    }
+
+    private UserPrincipalCacheService cacheService() {
+        UserPrincipalCacheService service = new UserPrincipalCacheService(redisTemplate, null);
+        ReflectionTestUtils.setField(service, "redisTtlSeconds", 900L);
+        ReflectionTestUtils.setField(service, "localCache", Caffeine.newBuilder().<String, UserPrincipal>build());
+        return service;
+    }
+
+    private static UserPrincipal principal(boolean active, int tokenVersion) {
+        return new UserPrincipal(7L, EMAIL, "hash", active, tokenVersion, Set.of(new SimpleGrantedAuthority("ROLE_CUSTOMER")));
+    }
+
+    private void cleanUp() {
+        redisTemplate.delete(List.of("user:principal:" + EMAIL, "user:principal:gen:" + EMAIL));
+    }
+}